@@ -0,0 +1,477 @@
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * An implementation of {@link Sorter} that samples the list before sorting
+ * and hands it to whichever of {@link InsertionSorter},
+ * {@link BinaryInsertionSorter}, {@link MergeSorter} and {@link QuickSorter}
+ * is expected to be fastest for it.
+ *
+ * The thresholds used to choose were calibrated with the {@code adaptive}
+ * mode of {@link Benchmark}.
+ *
+ * @author Jack Croghan
+ */
+public class AdaptiveSorter extends Sorter
+{
+  /**
+   * Lists of at most this many words are insertion sorted, which the
+   * {@code insertion} mode of {@link Benchmark} shows to be faster than merge
+   * sort up to here: presorted lists by {@link InsertionSorter}, and others
+   * by {@link BinaryInsertionSorter}.
+   */
+  static final int INSERTION_CUTOFF = BinaryInsertionSorter.CUTOFF;
+
+  /**
+   * Nearly sorted lists of at most this many words are insertion sorted.
+   */
+  static final int PRESORTED_INSERTION_CUTOFF = 4096;
+
+  /**
+   * The fraction of sampled neighbours that must be in order (or in reverse
+   * order) for the list to be treated as presorted (or reversed).
+   */
+  static final double PRESORTED_THRESHOLD = 0.9;
+
+  /**
+   * How far from one half the fraction of sampled neighbours in ascending
+   * order, or in descending order, may be for the list to still be
+   * considered random.
+   */
+  static final double NEIGHBOUR_BIAS_THRESHOLD = 0.125;
+
+  /**
+   * The average length of the runs, ascending or descending, found in the
+   * sampled windows from which a list is considered partially ordered.
+   * Random lists average under three words per run.
+   */
+  static final double RUN_LENGTH_THRESHOLD = 4;
+
+  /**
+   * The length of the longest run found in the sampled windows from which a
+   * list is considered partially ordered. A random list has a run this long
+   * in well under one sample in a hundred.
+   */
+  static final int LONGEST_RUN_THRESHOLD = 8;
+
+  /**
+   * How far from one half the fraction of ascending pairs of far apart words
+   * may be, across and within any quarter of the list, for the list to still
+   * be considered random.
+   */
+  static final double LONG_RANGE_BIAS_THRESHOLD = 0.25;
+
+  /**
+   * The fraction of sampled words that must be repeats before quick sort,
+   * which degrades to quadratic time on runs of equal words, is avoided.
+   */
+  static final double DUPLICATE_THRESHOLD = 0.05;
+
+  /**
+   * The fraction of the average word length that neighbours must share as a
+   * prefix before comparisons are considered expensive enough to prefer the
+   * sorter making the fewest of them.
+   */
+  static final double PREFIX_THRESHOLD = 0.5;
+
+  /**
+   * Alphabets of at most this many characters make repeated short words
+   * likely even when the sample happens to contain none.
+   */
+  static final int SMALL_ALPHABET = 4;
+
+  /**
+   * The maximum number of words examined in windows when profiling a list.
+   */
+  private static final int SAMPLE_SIZE = 256;
+
+  /**
+   * The number of contiguous words in each sampled window.
+   */
+  private static final int WINDOW_SIZE = 16;
+
+  /**
+   * The maximum number of pairs of far apart words compared by each of the
+   * checks across and within the quarters of the list.
+   */
+  private static final int LONG_RANGE_PAIRS = 64;
+
+
+  /**
+   * The alphabet the words are drawn from, or {@code null} if unknown.
+   */
+  private final Alphabet alphabet;
+
+  /**
+   * The sorter chosen for short lists that are nearly sorted.
+   */
+  private final Sorter insertionSorter = new InsertionSorter();
+
+  /**
+   * The sorter chosen for other short lists.
+   */
+  private final Sorter binaryInsertionSorter = new BinaryInsertionSorter();
+
+  /**
+   * The sorter chosen for long lists that are not clearly random, binary
+   * insertion sorting short ranges.
+   */
+  private final Sorter mergeSorter = new MergeSorter(BinaryInsertionSorter.CUTOFF);
+
+  /**
+   * The sorter chosen for other long lists, binary insertion sorting short
+   * ranges.
+   */
+  private final Sorter quickSorter = new QuickSorter(BinaryInsertionSorter.CUTOFF);
+
+  /**
+   * The number of times each sorter has been chosen, keyed by sorter name.
+   */
+  private final Map<String, Integer> decisions = new LinkedHashMap<>();
+
+  /**
+   * The profile of the most recently sorted list.
+   */
+  private Profile lastProfile;
+
+
+  /**
+   * Constructs a sorter that does not know the alphabet of the words it
+   * sorts.
+   */
+  public AdaptiveSorter()
+  {
+    this(null);
+  }
+
+  /**
+   * Constructs a sorter that takes the size of the given alphabet into
+   * account when choosing how to sort.
+   *
+   * @param alphabet
+   *   the alphabet the sorted words are drawn from, or {@code null} if
+   *   unknown
+   */
+  public AdaptiveSorter(Alphabet alphabet)
+  {
+    this.alphabet = alphabet;
+  }
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    // Profiling is not part of sorting, so its comparisons are not counted.
+    lastProfile = profile(toSort, uncounted(comp));
+    Sorter chosen = choose(lastProfile);
+    decisions.merge(chosen.getName(), 1, Integer::sum);
+    chosen.sort(toSort, comp);
+  }
+
+  /**
+   * Returns the number of times each sorter has been chosen by this sorter,
+   * keyed by the name of the chosen sorter.
+   *
+   * @return
+   *   an unmodifiable view of the number of times each sorter was chosen
+   */
+  public Map<String, Integer> getDecisions()
+  {
+    return Collections.unmodifiableMap(decisions);
+  }
+
+  /**
+   * Returns the profile of the list most recently sorted by this sorter, or
+   * {@code null} if nothing has been sorted yet.
+   *
+   * @return
+   *   the profile of the most recently sorted list
+   */
+  public Profile getLastProfile()
+  {
+    return lastProfile;
+  }
+
+  /**
+   * Returns the sorter expected to be fastest for a list with the given
+   * profile.
+   *
+   * @param p
+   *   the profile of the list to sort
+   * @return
+   *   the sorter to use
+   */
+  private Sorter choose(Profile p)
+  {
+    if (p.length <= INSERTION_CUTOFF)
+    {
+      return p.ascending >= PRESORTED_THRESHOLD ? insertionSorter : binaryInsertionSorter;
+    }
+    if (p.ascending >= PRESORTED_THRESHOLD)
+    {
+      return p.length <= PRESORTED_INSERTION_CUTOFF ? insertionSorter : mergeSorter;
+    }
+
+    // The last element pivot of QuickSorter degrades to quadratic time,
+    // and recursion as deep as the list is long, on ordered stretches of any
+    // shape, such as reversed input, sawtooth or organ-pipe lists, and lists
+    // ordered overall even if their neighbours are not. It also suffers on
+    // runs of equal words and long shared prefixes (which make each
+    // comparison expensive). Fall back to the sorter with a guaranteed bound
+    // on comparisons unless the sample looks random on every count.
+    boolean random = Math.abs(p.ascending - 0.5) < NEIGHBOUR_BIAS_THRESHOLD
+                     && Math.abs(p.descending - 0.5) < NEIGHBOUR_BIAS_THRESHOLD
+                     && p.averageRun < RUN_LENGTH_THRESHOLD
+                     && p.longestRun < LONGEST_RUN_THRESHOLD
+                     && p.longRangeBias < LONG_RANGE_BIAS_THRESHOLD;
+    boolean smallAlphabet = p.alphabetSize > 0 && p.alphabetSize <= SMALL_ALPHABET;
+    if (!random
+        || p.duplicateRatio >= DUPLICATE_THRESHOLD
+        || p.averageLength > 0 && p.commonPrefix / p.averageLength >= PREFIX_THRESHOLD
+        || smallAlphabet)
+    {
+      return mergeSorter;
+    }
+    return quickSorter;
+  }
+
+  /**
+   * Profiles the given list by examining evenly spaced windows of
+   * {@link #WINDOW_SIZE} contiguous words, at most {@link #SAMPLE_SIZE} words
+   * in all, and pairs of far apart words across and within each quarter of
+   * the list.
+   *
+   * @param list
+   *   the list to profile
+   * @param comp
+   *   the comparator the list will be sorted with
+   * @return
+   *   the profile of the list
+   */
+  private Profile profile(WordList list, Comparator<String> comp)
+  {
+    Profile p = new Profile();
+    p.length = list.length();
+    p.alphabetSize = null == alphabet ? -1 : alphabet.size();
+
+    if (p.length < 2)
+    {
+      p.ascending = 1;
+      p.averageRun = p.length;
+      p.longestRun = p.length;
+      p.estimatedRuns = p.length;
+      return p;
+    }
+
+    String[] words = list.getArray();
+    int windowSize = Math.min(WINDOW_SIZE, p.length);
+    int windows = Math.max(1, Math.min(SAMPLE_SIZE / WINDOW_SIZE, p.length / windowSize));
+    int spacing = p.length / windows;
+
+    int pairs = 0;
+    int ascending = 0;
+    int descending = 0;
+    int runs = 0;
+    long totalLength = 0;
+    long totalPrefix = 0;
+    HashSet<String> seen = new HashSet<>();
+
+    for (int w = 0; w < windows; ++w)
+    {
+      int start = w * spacing;
+      int end = start + windowSize;
+
+      // Splits the window into maximal runs the way a natural merge sort
+      // would: each run is ascending or strictly descending, as decided by
+      // its first two words.
+      int runStart = start;
+      int runDirection = 0;
+      for (int i = start; i < end; ++i)
+      {
+        totalLength += words[i].length();
+        seen.add(words[i]);
+        if (i + 1 == end)
+        {
+          break;
+        }
+
+        int c = comp.compare(words[i], words[i + 1]);
+        ++pairs;
+        if (c <= 0)
+        {
+          ++ascending;
+        }
+        if (c >= 0)
+        {
+          ++descending;
+        }
+        totalPrefix += commonPrefix(words[i], words[i + 1]);
+
+        int direction = c > 0 ? -1 : 1;
+        if (0 == runDirection)
+        {
+          runDirection = direction;
+        }
+        else if (direction != runDirection)
+        {
+          ++runs;
+          p.longestRun = Math.max(p.longestRun, i + 1 - runStart);
+          runStart = i + 1;
+          runDirection = 0;
+        }
+      }
+      ++runs;
+      p.longestRun = Math.max(p.longestRun, end - runStart);
+    }
+
+    // Comparing words far apart catches lists that are ordered overall but
+    // not locally, such as a sorted list with each neighbouring pair swapped.
+    // Each quarter is compared with the next, and each half quarter with the
+    // other half of its quarter.
+    int quarter = p.length / 4;
+    for (int q = 0; q < 4 && quarter > 0; ++q)
+    {
+      if (q < 3)
+      {
+        p.longRangeBias = Math.max(p.longRangeBias, longRangeBias(words, comp, q * quarter, quarter));
+      }
+      if (quarter > 1)
+      {
+        p.longRangeBias = Math.max(p.longRangeBias, longRangeBias(words, comp, q * quarter, quarter / 2));
+      }
+    }
+
+    int sampled = windows * windowSize;
+    p.ascending = (double) ascending / pairs;
+    p.descending = (double) descending / pairs;
+    p.averageRun = (double) sampled / runs;
+    p.estimatedRuns = Math.max(1, (int) Math.round(p.length / p.averageRun));
+    p.duplicateRatio = 1 - (double) seen.size() / sampled;
+    p.averageLength = (double) totalLength / sampled;
+    p.commonPrefix = (double) totalPrefix / pairs;
+    return p;
+  }
+
+  /**
+   * Compares at most {@link #LONG_RANGE_PAIRS} evenly spaced words from the
+   * {@code distance} words starting at index {@code start} with the words
+   * {@code distance} further on, and returns how far from one half the
+   * fraction of those pairs in ascending order is.
+   */
+  private static double longRangeBias(String[] words, Comparator<String> comp, int start, int distance)
+  {
+    int pairs = Math.min(LONG_RANGE_PAIRS, distance);
+    int ascending = 0;
+    for (int k = 0; k < pairs; ++k)
+    {
+      int i = start + (int) ((long) k * distance / pairs);
+      if (comp.compare(words[i], words[i + distance]) < 0)
+      {
+        ++ascending;
+      }
+    }
+    return Math.abs((double) ascending / pairs - 0.5);
+  }
+
+  /**
+   * Returns the length of the longest common prefix of the given strings.
+   */
+  private static int commonPrefix(String a, String b)
+  {
+    int max = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < max && a.charAt(i) == b.charAt(i))
+    {
+      ++i;
+    }
+    return i;
+  }
+
+
+  /**
+   * A PODT class describing the shape of a list, as estimated from a sample.
+   */
+  public static class Profile
+  {
+    /**
+     * The number of words in the list.
+     */
+    public int length;
+
+    /**
+     * The fraction of sampled neighbours that are in ascending order.
+     */
+    public double ascending;
+
+    /**
+     * The fraction of sampled neighbours that are in descending order.
+     */
+    public double descending;
+
+    /**
+     * The average length of the ascending or descending runs in the sampled
+     * windows.
+     */
+    public double averageRun;
+
+    /**
+     * The length of the longest ascending or descending run in the sampled
+     * windows.
+     */
+    public int longestRun;
+
+    /**
+     * The estimated number of ascending or descending runs in the list.
+     */
+    public int estimatedRuns;
+
+    /**
+     * The largest distance from one half of the fraction of sampled pairs of
+     * far apart words in ascending order, over the checks across and within
+     * the quarters of the list. Close to zero for a random list.
+     */
+    public double longRangeBias;
+
+    /**
+     * The fraction of sampled words that were repeats of another sampled
+     * word.
+     */
+    public double duplicateRatio;
+
+    /**
+     * The average length of the sampled words.
+     */
+    public double averageLength;
+
+    /**
+     * The average length of the prefix shared by sampled neighbours.
+     */
+    public double commonPrefix;
+
+    /**
+     * The number of characters in the alphabet, or a negative value if
+     * unknown.
+     */
+    public int alphabetSize;
+
+
+    @Override
+    public String toString()
+    {
+      return String.format("{length=%d, ascending=%.2f, descending=%.2f, averageRun=%.2f, longestRun=%d, "
+                           + "runs=%d, longRangeBias=%.2f, duplicates=%.2f, averageLength=%.1f, "
+                           + "commonPrefix=%.1f, alphabetSize=%d}",
+                           length, ascending, descending, averageRun, longestRun, estimatedRuns, longRangeBias,
+                           duplicateRatio, averageLength, commonPrefix, alphabetSize);
+    }
+  }
+}
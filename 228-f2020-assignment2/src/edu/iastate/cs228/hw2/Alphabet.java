@@ -1,86 +1,491 @@
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 
 /**
  * A class representing an ordering of characters that can be queried to know
  * the position of a given character.
- * 
+ *
+ * Characters outside the Basic Multilingual Plane are supported, and are
+ * identified by their code point. Surrogates cannot be ordered on their own:
+ * words are compared by code point, so a surrogate pair is looked up as the
+ * character it encodes, never as its two halves.
+ *
+ * A built ordering can be saved as a snapshot of its lookup tables with
+ * {@link #writeSnapshot(String)}, which {@link #load(String)} reads back with
+ * a single read instead of parsing the ordering again. A snapshot holds,
+ * big-endian:
+ *  - a header of the magic number {@code ALPH}, the format version, the
+ *    number of characters, the {@linkplain #fingerprint() fingerprint}, the
+ *    length of the Basic Multilingual Plane table, the number of
+ *    supplementary blocks, and the number of those blocks that are present
+ *  - the Basic Multilingual Plane table
+ *  - the index and table of each present supplementary block
+ *
  * @author Jack Croghan
  */
 public class Alphabet
 {
   /**
-   * A lookup table containing characters and their positions.
-   * Sorted by the character of each entry.
+   * The size of the buffer used when reading an ordering from a file.
    */
-  private final CharAndPos[] lookup;
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The magic number starting every snapshot.
+   */
+  private static final int SNAPSHOT_MAGIC = 0x414C5048;
+
+  /**
+   * The version of the snapshot format written.
+   */
+  private static final int SNAPSHOT_VERSION = 2;
+
+  /**
+   * The number of bytes in the header of a snapshot.
+   */
+  private static final int SNAPSHOT_HEADER_SIZE = 32;
+
+  /**
+   * The base two logarithm of the number of code points in each block of
+   * {@link #supplementaryLookup}.
+   */
+  private static final int BLOCK_BITS = 8;
+
+  /**
+   * The mask selecting the offset of a code point within its block.
+   */
+  private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
+  /**
+   * The offset basis of the 64-bit FNV-1a hash used for fingerprints.
+   */
+  static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /**
+   * The prime of the 64-bit FNV-1a hash used for fingerprints.
+   */
+  static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * A lookup table containing the position of each character of the Basic
+   * Multilingual Plane, indexed by the character itself.
+   * Holds a negative value for characters not in the ordering, and is only
+   * long enough to hold the greatest such character in the ordering.
+   */
+  private final int[] bmpLookup;
+
+  /**
+   * A two-level lookup table containing the position of each supplementary
+   * code point in the ordering. The first level is indexed by the block of
+   * {@code 1 << BLOCK_BITS} code points holding the code point, counted from
+   * {@link Character#MIN_SUPPLEMENTARY_CODE_POINT}, and is {@code null} for
+   * blocks without any code points in the ordering. The second level is
+   * indexed by the offset of the code point within its block, and holds a
+   * negative value for code points not in the ordering.
+   */
+  private final int[][] supplementaryLookup;
+
+  /**
+   * The number of characters in the ordering.
+   */
+  private final int size;
+
+  /**
+   * A 64-bit hash of the ordering.
+   */
+  private final long fingerprint;
 
 
   /**
    * Constructs and initializes the ordering to have exactly the ordering of
    * the elements in the given array.
-   * 
+   *
    * @param ordering
    *   the array containing the characters, in the ordering desired
    * @throws NullPointerException
    *   if {@code ordering} is {@code null}
+   * @throws IllegalArgumentException
+   *   if a character appears more than once in {@code ordering}, or is half
+   *   of a surrogate pair; characters outside the Basic Multilingual Plane
+   *   must be given to {@link #Alphabet(int[])} by code point instead
+   */
+  public Alphabet(char[] ordering) throws NullPointerException, IllegalArgumentException
+  {
+    this(toCodePoints(ordering));
+  }
+
+  /**
+   * Constructs and initializes the ordering to have exactly the ordering of
+   * the code points in the given array.
+   *
+   * @param ordering
+   *   the array containing the code points, in the ordering desired
+   * @throws NullPointerException
+   *   if {@code ordering} is {@code null}
+   * @throws IllegalArgumentException
+   *   if an element of {@code ordering} is not a valid code point or is a
+   *   surrogate, or a code point appears more than once in {@code ordering}
    */
-  public Alphabet(char[] ordering) throws NullPointerException
+  public Alphabet(int[] ordering) throws NullPointerException, IllegalArgumentException
   {
-    lookup = new CharAndPos[ordering.length];
+    size = ordering.length;
 
-    for (int i = 0; i < ordering.length; ++i){
-      lookup[i] = new CharAndPos(ordering[i], i);
+    long hash = FNV_OFFSET_BASIS;
+    int maxBmp = -1;
+    int maxBlock = -1;
+    for (int i = 0; i < ordering.length; ++i)
+    {
+      int c = ordering[i];
+      hash = fnv(hash, c, 4);
+      if (!Character.isValidCodePoint(c))
+      {
+        throw new IllegalArgumentException("Invalid code point " + c + " at position " + i);
+      }
+      if (Character.isBmpCodePoint(c) && Character.isSurrogate((char) c))
+      {
+        throw new IllegalArgumentException(String.format("Surrogate U+%04X at position %d is only half of a "
+            + "character; give supplementary characters by code point", c, i));
+      }
+      if (Character.isBmpCodePoint(c))
+      {
+        maxBmp = Math.max(maxBmp, c);
+      }
+      else
+      {
+        maxBlock = Math.max(maxBlock, (c - Character.MIN_SUPPLEMENTARY_CODE_POINT) >>> BLOCK_BITS);
+      }
     }
 
+    fingerprint = hash;
+    bmpLookup = new int[maxBmp + 1];
+    Arrays.fill(bmpLookup, -1);
+    supplementaryLookup = new int[maxBlock + 1][];
+
+    for (int i = 0; i < ordering.length; ++i)
+    {
+      int c = ordering[i];
+      int[] table;
+      int idx;
+
+      if (Character.isBmpCodePoint(c))
+      {
+        table = bmpLookup;
+        idx = c;
+      }
+      else
+      {
+        int offset = c - Character.MIN_SUPPLEMENTARY_CODE_POINT;
+        int block = offset >>> BLOCK_BITS;
+        if (null == supplementaryLookup[block])
+        {
+          supplementaryLookup[block] = new int[BLOCK_MASK + 1];
+          Arrays.fill(supplementaryLookup[block], -1);
+        }
+        table = supplementaryLookup[block];
+        idx = offset & BLOCK_MASK;
+      }
+
+      if (table[idx] >= 0)
+      {
+        throw new IllegalArgumentException(String.format("Duplicate character U+%04X at positions %d and %d",
+            c, table[idx], i));
+      }
+      table[idx] = i;
+    }
   }
 
   /**
    * Constructs and initializes the ordering by reading from the indicated
-   * file. The file is expected to have a single character on each line, and
-   * the ordering in the file is the order that will be used.
-   * 
+   * file. The file is expected to be encoded in UTF-8 and to have a single
+   * character on each line, and the ordering in the file is the order that
+   * will be used. The character on line {@code n} is given position
+   * {@code n - 1}.
+   *
    * @param filename
    *   the name of the file to read
    * @throws NullPointerException
    *   if {@code filename} is {@code null}
    * @throws FileNotFoundException
    *   if the file cannot be found
+   * @throws IllegalArgumentException
+   *   if a line of the file is blank or holds more than one character, or a
+   *   character appears on more than one line
+   * @throws UncheckedIOException
+   *   if the file cannot be read
    */
-  public Alphabet(String filename) throws NullPointerException, FileNotFoundException
+  public Alphabet(String filename) throws NullPointerException, FileNotFoundException, IllegalArgumentException
   {
-    File file = new File(filename);
-    Scanner scnr1 = new Scanner(file);
+    this(readOrdering(filename));
+  }
+
+  /**
+   * Constructs an ordering over the given lookup tables, as read from a
+   * snapshot.
+   */
+  private Alphabet(int[] bmpLookup, int[][] supplementaryLookup, int size, long fingerprint)
+  {
+    this.bmpLookup = bmpLookup;
+    this.supplementaryLookup = supplementaryLookup;
+    this.size = size;
+    this.fingerprint = fingerprint;
+  }
+
+
+  /**
+   * Converts an ordering file to a snapshot.
+   *
+   * @param args
+   *   an array expected to contain two arguments:
+   *    - the name of a file containing an ordering, as read by
+   *      {@link #Alphabet(String)}
+   *    - the name of the snapshot file to write
+   */
+  public static void main(String[] args) throws FileNotFoundException
+  {
+    Alphabet alphabet = new Alphabet(args[0]);
+    alphabet.writeSnapshot(args[1]);
+    System.out.println("Wrote a snapshot of " + alphabet.size() + " characters to " + args[1]);
+  }
+
+
+  /**
+   * Loads the ordering held by the indicated file, which is either a
+   * snapshot or an ordering as read by {@link #Alphabet(String)}.
+   *
+   * @param filename
+   *   the name of the file to read
+   * @return
+   *   the ordering held by the file
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be found
+   * @throws IllegalArgumentException
+   *   if the file holds neither a valid snapshot nor a valid ordering
+   * @throws UncheckedIOException
+   *   if the file cannot be read
+   */
+  public static Alphabet load(String filename)
+    throws NullPointerException, FileNotFoundException, IllegalArgumentException
+  {
+    return isSnapshot(filename) ? readSnapshot(filename) : new Alphabet(filename);
+  }
+
+  /**
+   * Returns true if and only if the indicated file starts with the magic
+   * number of a snapshot.
+   *
+   * @param filename
+   *   the name of the file to test
+   * @return
+   *   true if and only if the file appears to be a snapshot
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be found
+   */
+  public static boolean isSnapshot(String filename) throws NullPointerException, FileNotFoundException
+  {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(filename)))
+    {
+      return in.readInt() == SNAPSHOT_MAGIC;
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Reads the ordering held by the indicated snapshot, reading the whole
+   * file at once and copying the lookup tables out of it without rebuilding
+   * them.
+   *
+   * @param filename
+   *   the name of the snapshot to read
+   * @return
+   *   the ordering held by the snapshot
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be found
+   * @throws IllegalArgumentException
+   *   if the file is not a snapshot, or is truncated or corrupt
+   * @throws UncheckedIOException
+   *   if the file cannot be read
+   */
+  public static Alphabet readSnapshot(String filename)
+    throws NullPointerException, FileNotFoundException, IllegalArgumentException
+  {
+    byte[] contents;
+    try (RandomAccessFile file = new RandomAccessFile(filename, "r"))
+    {
+      if (file.length() > Integer.MAX_VALUE)
+      {
+        throw new IllegalArgumentException(filename + " is not a snapshot");
+      }
+      contents = new byte[(int) file.length()];
+      file.readFully(contents);
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(contents);
+    if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC)
+    {
+      throw new IllegalArgumentException(filename + " is not a snapshot");
+    }
+    if (buffer.getInt() != SNAPSHOT_VERSION)
+    {
+      throw new IllegalArgumentException(filename + " has an unsupported version");
+    }
 
-    int i = 0;
-    while(scnr1.hasNextLine()){
-      ++i;
-      scnr1.nextLine();
+    int size = buffer.getInt();
+    long fingerprint = buffer.getLong();
+    int bmpLength = buffer.getInt();
+    int blockCount = buffer.getInt();
+    int presentBlocks = buffer.getInt();
+
+    IntBuffer ints = buffer.asIntBuffer();
+    long expected = (long) bmpLength + (long) presentBlocks * (BLOCK_MASK + 2);
+    int maxBlocks = ((Character.MAX_CODE_POINT - Character.MIN_SUPPLEMENTARY_CODE_POINT) >>> BLOCK_BITS) + 1;
+    if (bmpLength < 0 || bmpLength > Character.MAX_VALUE + 1 || blockCount < 0 || blockCount > maxBlocks
+        || presentBlocks < 0 || presentBlocks > blockCount || ints.remaining() != expected
+        || size < 0 || size > expected)
+    {
+      throw new IllegalArgumentException(filename + " is truncated or corrupt");
     }
 
-    scnr1.close();
-    lookup = new CharAndPos[i];
+    int[] bmpLookup = new int[bmpLength];
+    ints.get(bmpLookup);
 
-    Scanner scnr2 = new Scanner(file);
+    int[][] supplementaryLookup = new int[blockCount][];
+    for (int i = 0; i < presentBlocks; ++i)
+    {
+      int block = ints.get();
+      if (block < 0 || block >= blockCount || null != supplementaryLookup[block])
+      {
+        throw new IllegalArgumentException(filename + " is truncated or corrupt");
+      }
+      supplementaryLookup[block] = new int[BLOCK_MASK + 1];
+      ints.get(supplementaryLookup[block]);
+    }
 
-    i = 0;
-    while(scnr2.hasNextLine()){
-      lookup[i] = new CharAndPos(scnr2.nextLine().charAt(0), i);
-      ++i;
+    // Rebuilding the ordering from the tables both checks that they are
+    // consistent and recomputes the fingerprint to compare with the header.
+    int[] ordering = new int[size];
+    Arrays.fill(ordering, -1);
+    int found = invert(bmpLookup, 0, ordering, filename);
+    for (int block = 0; block < blockCount; ++block)
+    {
+      if (null != supplementaryLookup[block])
+      {
+        int base = Character.MIN_SUPPLEMENTARY_CODE_POINT + (block << BLOCK_BITS);
+        found += invert(supplementaryLookup[block], base, ordering, filename);
+      }
+    }
+
+    long hash = FNV_OFFSET_BASIS;
+    for (int c : ordering)
+    {
+      hash = fnv(hash, c, 4);
+    }
+    if (found != size || hash != fingerprint)
+    {
+      throw new IllegalArgumentException(filename + " is truncated or corrupt");
     }
-    
-    scnr2.close();
 
-    lookupSort(lookup, 0, lookup.length - 1);
+    return new Alphabet(bmpLookup, supplementaryLookup, size, fingerprint);
+  }
+
+  /**
+   * Writes a snapshot of this ordering to the indicated file.
+   *
+   * @param filename
+   *   the name of the file to write
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be created
+   * @throws UncheckedIOException
+   *   if the file cannot be written
+   */
+  public void writeSnapshot(String filename) throws NullPointerException, FileNotFoundException
+  {
+    int presentBlocks = 0;
+    for (int[] table : supplementaryLookup)
+    {
+      if (null != table)
+      {
+        ++presentBlocks;
+      }
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename))))
+    {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeInt(size);
+      out.writeLong(fingerprint);
+      out.writeInt(bmpLookup.length);
+      out.writeInt(supplementaryLookup.length);
+      out.writeInt(presentBlocks);
+
+      for (int pos : bmpLookup)
+      {
+        out.writeInt(pos);
+      }
+      for (int block = 0; block < supplementaryLookup.length; ++block)
+      {
+        if (null != supplementaryLookup[block])
+        {
+          out.writeInt(block);
+          for (int pos : supplementaryLookup[block])
+          {
+            out.writeInt(pos);
+          }
+        }
+      }
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
   }
 
 
   /**
    * Returns true if and only if the given character is present in the
    * ordering.
-   * 
+   *
    * @param c
    *   the character to test
    * @return
@@ -88,14 +493,74 @@ public class Alphabet
    */
   public boolean isValid(char c)
   {
-    return binarySearch(c) >= 0;
+    return getPosition(c) >= 0;
+  }
+
+  /**
+   * Returns true if and only if the given code point is present in the
+   * ordering.
+   *
+   * @param codePoint
+   *   the code point to test
+   * @return
+   *   true if and only if the given code point is present in the ordering
+   */
+  public boolean isValid(int codePoint)
+  {
+    return getPosition(codePoint) >= 0;
+  }
+
+  /**
+   * Returns the number of characters in the ordering.
+   *
+   * @return
+   *   the number of characters in the ordering
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Folds the given number of low-order bytes of the given value, least
+   * significant first, into the given 64-bit FNV-1a hash, one byte per step
+   * as the hash is designed to be used.
+   *
+   * @param hash
+   *   the hash so far
+   * @param value
+   *   the value to hash
+   * @param bytes
+   *   the number of low-order bytes of {@code value} to hash
+   * @return
+   *   the hash of the bytes so far followed by those of {@code value}
+   */
+  static long fnv(long hash, long value, int bytes)
+  {
+    for (int i = 0; i < bytes; ++i)
+    {
+      hash = (hash ^ ((value >>> (8 * i)) & 0xFF)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Returns a 64-bit hash of the ordering, equal for alphabets with the same
+   * characters in the same order.
+   *
+   * @return
+   *   the fingerprint of the ordering
+   */
+  public long fingerprint()
+  {
+    return fingerprint;
   }
 
   /**
    * Returns the position of the given character in the ordering.
    * Returns a negative value if the given character is not present in the
    * ordering.
-   * 
+   *
    * @param c
    *   the character of which the position will be determined
    * @return
@@ -104,172 +569,177 @@ public class Alphabet
    */
   public int getPosition(char c)
   {
-    return binarySearch(c);
+    return c < bmpLookup.length ? bmpLookup[c] : -1;
   }
 
   /**
-   * Returns the index of the entry containing the given character within the
-   * lookup table {@link #lookup}.
-   * Returns a negative value if the given character does not have an entry in
-   * the table.
-   * 
-   * @param toFind
-   *   the character for which to search
+   * Returns the position of the given code point in the ordering.
+   * Returns a negative value if the given code point is not present in the
+   * ordering.
+   *
+   * @param codePoint
+   *   the code point of which the position will be determined
    * @return
-   *   the index of the entry containing the given character, or a negative
-   *   value if the given character does not have an entry in the table
+   *   the position of the given code point, or a negative value if the given
+   *   code point is not present in the ordering
    */
-  private int binarySearch(char toFind)
+  public int getPosition(int codePoint)
   {
-    int start = 0;
-    int end = lookup.length - 1;
-    int mid;
-
-    while(start <= end)
+    if (codePoint >= 0 && codePoint < bmpLookup.length)
     {
-      mid = (start + end) / 2;
-      if(lookup[mid].character < toFind){
-        start = mid + 1;
-      }
-      else if(lookup[mid].character > toFind){
-        end = mid - 1;
-      }
-      else{
-        return lookup[mid].position;
-      }
+      return bmpLookup[codePoint];
     }
-    return -1;
-  }
-
-  /**
-   * Sorts the characters in the lookup table so that they may be easily found by the binary search.
-   * Modifies the array of CharAndPos objects given to it.
-   *
-   * @param arr
-   *  the array to be modified
-   * @param start
-   *  the start point of the array
-   * @param end
-   *  the end point of the array
-   */
-  public void lookupSort(CharAndPos[] arr, int start, int end)
-  {
-    if (start < end) {
-      int mid = (start + end) / 2;
-      lookupSort(arr, start, mid);
-      lookupSort(arr, mid + 1, end);
-      merge(arr, start, mid, end);
+    int offset = codePoint - Character.MIN_SUPPLEMENTARY_CODE_POINT;
+    int block = offset >>> BLOCK_BITS;
+    if (offset < 0 || block >= supplementaryLookup.length || null == supplementaryLookup[block])
+    {
+      return -1;
     }
+    return supplementaryLookup[block][offset & BLOCK_MASK];
   }
 
+
   /**
-   * Merges the smaller lists created by the lookupSort back together in a sorted manner.
-   * The array given to this function is directly modified.
+   * Writes the position of each character of the given word, in order, to
+   * the given array, returning the number of positions written. A surrogate
+   * pair is written as the single position of the code point it encodes.
+   * Characters not present in the ordering are written as a negative value.
+   * Each character is looked up in the table in turn; the positions are not
+   * translated in blocks, which would need a vector gather the JDK does not
+   * provide outside its incubating API.
    *
-   * @param arr
-   *  the array to be merged back together
-   * @param start
-   *  the start point of the array
-   * @param mid
-   *  the mid point of the array
-   * @param end
-   *  the end point of the array
-   */
-  private void merge(CharAndPos[] arr, int start, int mid, int end)
+   * @param word
+   *   the word of which the positions will be determined
+   * @param dest
+   *   the array to write the positions to, with room for at least
+   *   {@code word.length()} positions
+   * @return
+   *   the number of positions written
+   * @throws NullPointerException
+   *   if either of {@code word} or {@code dest} are {@code null}
+   * @throws IndexOutOfBoundsException
+   *   if {@code dest} is too short to hold the positions
+   */
+  public int getPositions(String word, int[] dest) throws NullPointerException, IndexOutOfBoundsException
   {
-    CharAndPos[] temp = new CharAndPos[end - start + 1];
-
-    int i = start;
-    int j = mid + 1;
-    int k = 0;
+    int[] table = bmpLookup;
+    int length = word.length();
+    int n = 0;
 
-    while(i <= mid && j <= end) {
-      if(arr[i].character <= arr[j].character){
-        temp[k] = arr[i];
-        ++k;
+    for (int i = 0; i < length; ++n)
+    {
+      char c = word.charAt(i);
+      if (!Character.isSurrogate(c))
+      {
+        dest[n] = c < table.length ? table[c] : -1;
         ++i;
       }
-      else {
-        temp[k] = arr[j];
-        ++k;
-        ++j;
+      else
+      {
+        int codePoint = word.codePointAt(i);
+        dest[n] = getPosition(codePoint);
+        i += Character.charCount(codePoint);
       }
     }
-
-    while(i <= mid) {
-      temp[k] = arr[i];
-      ++k;
-      ++i;
-    }
-
-    while(j <= end) {
-      temp[k] = arr[j];
-      ++k;
-      ++j;
-    }
-
-    for (i = start; i <= end; ++i) {
-      arr[i] = temp[i - start];
-    }
+    return n;
   }
 
 
   /**
-   * A PODT class containing a character and a position.
-   * Used as the entry type within {@link Alphabet#lookup lookup}.
+   * Reads the ordering held by the indicated file in a single pass, as
+   * described by {@link #Alphabet(String)}.
+   *
+   * @param filename
+   *   the name of the file to read
+   * @return
+   *   the code points of the file, in order
    */
-  /* already completed */
-  @SuppressWarnings("SpellCheckingInspection")
-  private static class CharAndPos{
-    /**
-     * The character of the entry.
-     */
-    public final char character;
-
-    /**
-     * The position of the entry in the ordering.
-     */
-    public final int position;
-
+  private static int[] readOrdering(String filename) throws FileNotFoundException
+  {
+    int[] ordering = new int[256];
+    int count = 0;
 
-    /**
-     * Constructs and initializes the entry with the given values.
-     * 
-     * @param character
-     *   the character of the entry
-     * @param position
-     *   the position of the entry
-     */
-    public
-    CharAndPos(char character, int position)
+    try (BufferedReader in = new BufferedReader(
+        new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8), READ_BUFFER_SIZE))
+    {
+      String line;
+      while ((line = in.readLine()) != null)
+      {
+        // Tolerate a byte order mark at the start of the file.
+        if (0 == count && line.startsWith("\uFEFF"))
+        {
+          line = line.substring(1);
+        }
+        if (line.isEmpty())
+        {
+          throw new IllegalArgumentException("Line " + (count + 1) + " of " + filename + " is blank");
+        }
+
+        int c = line.codePointAt(0);
+        if (Character.charCount(c) != line.length())
+        {
+          throw new IllegalArgumentException(
+              "Line " + (count + 1) + " of " + filename + " holds more than one character");
+        }
+
+        if (count == ordering.length)
+        {
+          ordering = Arrays.copyOf(ordering, count * 2);
+        }
+        ordering[count++] = c;
+      }
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
     {
-      this.character = character;
-      this.position = position;
+      throw new UncheckedIOException(e);
     }
 
+    return Arrays.copyOf(ordering, count);
+  }
 
-    @Override
-    public
-    boolean
-    equals(Object obj)
+  /**
+   * Records in {@code ordering} the code point at each position held by the
+   * given lookup table, whose first entry is for code point {@code base},
+   * returning the number of positions found.
+   *
+   * @throws IllegalArgumentException
+   *   if a position is out of range or held by more than one code point
+   */
+  private static int invert(int[] table, int base, int[] ordering, String filename)
+    throws IllegalArgumentException
+  {
+    int found = 0;
+    for (int i = 0; i < table.length; ++i)
     {
-      if (null == obj || this.getClass() != obj.getClass())
+      int pos = table[i];
+      if (pos < 0)
       {
-        return false;
+        continue;
       }
-
-      CharAndPos o = (CharAndPos) obj;
-
-      return this.character == o.character && this.position == o.position;
-    }
-
-    @Override
-    public int hashCode(){
-      return character ^ position;
+      if (pos >= ordering.length || ordering[pos] >= 0 || 0 == base && Character.isSurrogate((char) i))
+      {
+        throw new IllegalArgumentException(filename + " is truncated or corrupt");
+      }
+      ordering[pos] = base + i;
+      ++found;
     }
+    return found;
+  }
 
-    @Override public String toString(){
-      return "{" + character + ", " + position + "}";
+  /**
+   * Returns the code points of the given characters.
+   */
+  private static int[] toCodePoints(char[] ordering)
+  {
+    int[] codePoints = new int[ordering.length];
+    for (int i = 0; i < ordering.length; ++i)
+    {
+      codePoints[i] = ordering[i];
     }
+    return codePoints;
   }
 }
@@ -0,0 +1,379 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+
+/**
+ * A collection of micro-benchmarks used to tune the sorters and comparators.
+ * Each benchmark runs on generated data, so no input files are needed.
+ *
+ * @author Jack Croghan
+ */
+public
+class
+Benchmark
+{
+  /**
+   * The number of words each benchmark aims to sort per measurement.
+   */
+  private static final int TOTAL_TO_SORT = 100000;
+
+  /**
+   * The alphabet used by generated word lists.
+   */
+  private static final Alphabet LOWERCASE = new Alphabet("abcdefghijklmnopqrstuvwxyz".toCharArray());
+
+
+  /**
+   * Runs the named benchmark.
+   *
+   * @param args
+   *   an array expected to contain the name of the benchmark to run:
+   *    - {@code adaptive}: times each base sorter against list shapes and
+   *      sizes, used to calibrate {@link AdaptiveSorter}
+   *    - {@code comparator}: measures the throughput of
+   *      {@link AlphabetComparator} on Basic Multilingual Plane and
+   *      supplementary words
+   *    - {@code index}: measures the memory per word and query latency of
+   *      {@link WordIndex} against a linear scan
+   *    - {@code mismatch}: measures {@link AlphabetComparator} on long words
+   *      sharing long prefixes
+   *    - {@code insertion}: times the insertion sort variants and
+   *      {@link MergeSorter} on small random lists, to find where each stops
+   *      being the fastest
+   */
+  public static void main(String[] args)
+  {
+    String mode = args.length > 0 ? args[0] : "adaptive";
+
+    switch (mode)
+    {
+      case "adaptive":
+        adaptive();
+        break;
+      case "comparator":
+        comparator();
+        break;
+      case "index":
+        index();
+        break;
+      case "mismatch":
+        mismatch();
+        break;
+      case "insertion":
+        insertion();
+        break;
+      default:
+        System.out.println("Unknown benchmark: " + mode);
+    }
+  }
+
+
+  /**
+   * Times {@link InsertionSorter}, {@link MergeSorter}, {@link QuickSorter}
+   * and {@link AdaptiveSorter} on random, presorted, reversed,
+   * duplicate-heavy and shared-prefix lists of increasing size.
+   */
+  private static void adaptive()
+  {
+    Comparator<String> comp = new AlphabetComparator(LOWERCASE);
+    String[] shapes = {"random", "sorted", "reversed", "duplicates", "prefixed"};
+    int[] sizes = {16, 32, 64, 128, 256, 1024, 4096};
+
+    System.out.printf("%-12s %6s %12s %12s %12s %12s%n",
+        "shape", "size", "Insertion", "Merge", "Quick", "Adaptive");
+    for (String shape : shapes)
+    {
+      for (int size : sizes)
+      {
+        WordList words = generate(shape, size, new Random(size));
+        Sorter[] sorters = {new InsertionSorter(), new MergeSorter(), new QuickSorter(),
+            new AdaptiveSorter(LOWERCASE)};
+
+        System.out.printf("%-12s %6d", shape, size);
+        for (Sorter sorter : sorters)
+        {
+          System.out.printf(" %12.4f", averageTime(sorter, words, comp));
+        }
+        System.out.println();
+      }
+    }
+  }
+
+  /**
+   * Measures comparisons per second made by {@link AlphabetComparator} on
+   * words over the Basic Multilingual Plane, next to a reference loop that
+   * only handles {@code char}s, and on words mixing in supplementary
+   * characters.
+   */
+  private static void comparator()
+  {
+    int[] emoji = new int[26];
+    for (int i = 0; i < emoji.length; ++i)
+    {
+      emoji[i] = 0x1F600 + i;
+    }
+    int[] ordering = new int[52];
+    for (int i = 0; i < 26; ++i)
+    {
+      ordering[2 * i] = 'a' + i;
+      ordering[2 * i + 1] = emoji[i];
+    }
+    Alphabet mixed = new Alphabet(ordering);
+
+    Random rand = new Random(228);
+    String[] bmp = new String[4096];
+    String[] supplementary = new String[bmp.length];
+    for (int i = 0; i < bmp.length; ++i)
+    {
+      bmp[i] = randomWord(rand, 3, 10);
+      StringBuilder sb = new StringBuilder(bmp[i]);
+      sb.appendCodePoint(emoji[rand.nextInt(emoji.length)]).append(bmp[i]);
+      supplementary[i] = sb.toString();
+    }
+
+    AlphabetComparator bmpComp = new AlphabetComparator(LOWERCASE);
+    Comparator<String> charOnly = Benchmark::scalarCompare;
+
+    for (int round = 0; round < 3; ++round)
+    {
+      System.out.printf("BMP, char reference:      %,15.0f comparisons/s%n", throughput(charOnly, bmp));
+      System.out.printf("BMP, AlphabetComparator:  %,15.0f comparisons/s%n", throughput(bmpComp, bmp));
+      System.out.printf("Supplementary:            %,15.0f comparisons/s%n",
+          throughput(new AlphabetComparator(mixed), supplementary));
+    }
+  }
+
+  /**
+   * Builds a {@link WordIndex} over a large sorted list, and reports its
+   * estimated memory per word and the average latency of prefix and range
+   * queries, next to the same queries answered by a linear scan.
+   */
+  private static void index()
+  {
+    AlphabetComparator comp = new AlphabetComparator(LOWERCASE);
+    WordList words = generate("sorted", 200000, new Random(228));
+    WordIndex index = new WordIndex(words, comp);
+
+    long arrayBytes = 4L * words.length();
+    for (String word : words.getArray())
+    {
+      arrayBytes += 40 + 2L * word.length();
+    }
+    System.out.printf("String[] bytes per word:  %8.2f%n", (double) arrayBytes / words.length());
+    System.out.printf("WordIndex bytes per word: %8.2f%n", (double) index.estimatedBytes() / words.length());
+
+    Random rand = new Random(2020);
+    String[] prefixes = new String[1000];
+    for (int i = 0; i < prefixes.length; ++i)
+    {
+      prefixes[i] = randomWord(rand, 2, 3);
+    }
+
+    for (int round = 0; round < 3; ++round)
+    {
+      long sink = 0;
+      long start = System.nanoTime();
+      for (String prefix : prefixes)
+      {
+        sink += index.withPrefix(prefix).size();
+      }
+      long indexPrefix = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (String prefix : prefixes)
+      {
+        sink += index.range(prefix, prefix + "m").size();
+      }
+      long indexRange = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int q = 0; q < prefixes.length / 10; ++q)
+      {
+        for (String word : words.getArray())
+        {
+          if (word.startsWith(prefixes[q]))
+          {
+            ++sink;
+          }
+        }
+      }
+      long scanPrefix = (System.nanoTime() - start) * 10;
+
+      System.out.printf("prefix query: index %8.2f us, scan %10.2f us; range query: index %8.2f us (%d)%n",
+          indexPrefix / 1e3 / prefixes.length, scanPrefix / 1e3 / prefixes.length,
+          indexRange / 1e3 / prefixes.length, sink);
+    }
+  }
+
+  /**
+   * Measures comparisons per second on long words sharing long prefixes,
+   * for {@link AlphabetComparator}, which finds the first mismatch before
+   * looking characters up in its ordering, against a reference loop comparing one character at a time.
+   */
+  private static void mismatch()
+  {
+    Random rand = new Random(228);
+    String base = randomWord(rand, 512, 512);
+    String[] words = new String[1024];
+    for (int i = 0; i < words.length; ++i)
+    {
+      words[i] = base.substring(0, 64 + rand.nextInt(448)) + randomWord(rand, 1, 16);
+    }
+
+    AlphabetComparator comp = new AlphabetComparator(LOWERCASE);
+    for (int round = 0; round < 3; ++round)
+    {
+      System.out.printf("Long words, char reference:     %,15.0f comparisons/s%n",
+          throughput(Benchmark::scalarCompare, words));
+      System.out.printf("Long words, AlphabetComparator: %,15.0f comparisons/s%n", throughput(comp, words));
+    }
+  }
+
+  /**
+   * Compares the given words over {@link #LOWERCASE} one {@code char} at a
+   * time, as a reference for {@link AlphabetComparator}.
+   */
+  private static int scalarCompare(String a, String b)
+  {
+    int min = Math.min(a.length(), b.length());
+    for (int i = 0; i < min; ++i)
+    {
+      int posA = LOWERCASE.getPosition(a.charAt(i));
+      int posB = LOWERCASE.getPosition(b.charAt(i));
+      if (posA < 0 || posB < 0)
+      {
+        throw new IllegalArgumentException();
+      }
+      if (posA != posB)
+      {
+        return posA < posB ? -1 : 1;
+      }
+    }
+    return Integer.compare(a.length(), b.length());
+  }
+
+  /**
+   * Returns the number of comparisons per second the given comparator makes
+   * comparing every pair of the given words.
+   */
+  private static double throughput(Comparator<String> comp, String[] words)
+  {
+    long start = System.nanoTime();
+    long sink = 0;
+    for (String a : words)
+    {
+      for (String b : words)
+      {
+        sink += comp.compare(a, b);
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    if (sink == Long.MIN_VALUE)
+    {
+      System.out.println(sink);
+    }
+    return (double) words.length * words.length / (elapsed / 1e9);
+  }
+
+  /**
+   * Times {@link InsertionSorter}, {@link BinaryInsertionSorter},
+   * {@link ShellSorter} and {@link MergeSorter} on random lists of small
+   * sizes, where quadratic sorters may still be the fastest.
+   */
+  private static void insertion()
+  {
+    Comparator<String> comp = new AlphabetComparator(LOWERCASE);
+    int[] sizes = {4, 8, 16, 24, 32, 48, 64, 96, 128, 256};
+
+    System.out.printf("%6s %12s %12s %12s %12s%n", "size", "Insertion", "BinaryIns", "Shell", "Merge");
+    for (int size : sizes)
+    {
+      WordList words = generate("random", size, new Random(size));
+      Sorter[] sorters = {new InsertionSorter(), new BinaryInsertionSorter(), new ShellSorter(),
+          new MergeSorter()};
+
+      System.out.printf("%6d", size);
+      for (Sorter sorter : sorters)
+      {
+        System.out.printf(" %12.5f", averageTime(sorter, words, comp));
+      }
+      System.out.println();
+    }
+  }
+
+  /**
+   * Returns the average time, in milliseconds, taken by the given sorter to
+   * sort the given list, after a warm-up run.
+   */
+  private static double averageTime(Sorter sorter, WordList words, Comparator<String> comp)
+  {
+    int total = Math.max(TOTAL_TO_SORT, words.length());
+    sorter.sortWithStatistics(words, comp, total);
+    sorter.sortWithStatistics(words, comp, total);
+    return sorter.getTotalSortingTime() / (sorter.getTotalWordsSorted() / words.length());
+  }
+
+  /**
+   * Generates a list of the given shape and size over {@link #LOWERCASE}.
+   *
+   * @param shape
+   *   one of {@code random}, {@code sorted}, {@code reversed},
+   *   {@code duplicates} or {@code prefixed}
+   * @param size
+   *   the number of words to generate
+   * @param rand
+   *   the source of randomness
+   * @return
+   *   the generated list
+   */
+  static WordList generate(String shape, int size, Random rand)
+  {
+    String[] words = new String[size];
+    for (int i = 0; i < size; ++i)
+    {
+      switch (shape)
+      {
+        case "duplicates":
+          words[i] = randomWord(rand, 2, 3).substring(0, 1);
+          break;
+        case "prefixed":
+          words[i] = "internationalization" + randomWord(rand, 1, 6);
+          break;
+        default:
+          words[i] = randomWord(rand, 3, 10);
+      }
+    }
+
+    if ("sorted".equals(shape) || "reversed".equals(shape))
+    {
+      WordList sorted = new WordList(words);
+      new MergeSorter().sort(sorted, new AlphabetComparator(LOWERCASE));
+      words = sorted.getArray();
+      if ("reversed".equals(shape))
+      {
+        for (int i = 0, j = size - 1; i < j; ++i, --j)
+        {
+          String temp = words[i];
+          words[i] = words[j];
+          words[j] = temp;
+        }
+      }
+    }
+    return new WordList(Arrays.copyOf(words, size));
+  }
+
+  /**
+   * Returns a random word over {@link #LOWERCASE} with a length between the
+   * given bounds, inclusive.
+   */
+  static String randomWord(Random rand, int minLength, int maxLength)
+  {
+    char[] chars = new char[minLength + rand.nextInt(maxLength - minLength + 1)];
+    for (int i = 0; i < chars.length; ++i)
+    {
+      chars[i] = (char) ('a' + rand.nextInt(26));
+    }
+    return new String(chars);
+  }
+}
@@ -0,0 +1,76 @@
+import java.util.Comparator;
+
+
+/**
+ * An implementation of {@link Sorter} that performs binary insertion sort
+ * to sort the list, finding where each word belongs with a binary search and
+ * shifting the words after it in bulk.
+ *
+ * It is stable, and makes O(n log n) comparisons, although it still moves
+ * O(n<sup>2</sup>) words.
+ *
+ * @author Jack Croghan
+ */
+public class BinaryInsertionSorter extends Sorter
+{
+  /**
+   * The length up to which the {@code insertion} mode of {@link Benchmark}
+   * shows binary insertion sort to be faster than merge sort, used by
+   * {@link AdaptiveSorter} as the length of the longest range its merge and
+   * quick sorters binary insertion sort.
+   */
+  static final int CUTOFF = 64;
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    sortRange(toSort.getArray(), 0, toSort.length(), comp);
+  }
+
+  /**
+   * Stably sorts the words of the given array from index {@code start} up
+   * to, but not including, index {@code end}.
+   *
+   * @param words
+   *   the array holding the words to sort
+   * @param start
+   *   the index of the first word to sort
+   * @param end
+   *   the index after the last word to sort
+   * @param comp
+   *   the comparator to use to compare words
+   */
+  static void sortRange(String[] words, int start, int end, Comparator<String> comp)
+  {
+    for (int i = start + 1; i < end; ++i)
+    {
+      String temp = words[i];
+
+      // Find the first word greater than temp, so equal words keep their
+      // order.
+      int low = start;
+      int high = i;
+      while (low < high)
+      {
+        int mid = (low + high) >>> 1;
+        if (comp.compare(words[mid], temp) > 0)
+        {
+          high = mid;
+        }
+        else
+        {
+          low = mid + 1;
+        }
+      }
+
+      System.arraycopy(words, low, words, low + 1, i - low);
+      words[low] = temp;
+    }
+  }
+}
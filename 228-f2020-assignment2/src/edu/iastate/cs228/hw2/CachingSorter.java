@@ -0,0 +1,238 @@
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+
+/**
+ * An implementation of {@link Sorter} that memoizes the permutations
+ * produced by another sorter in a {@link PermutationCache}, so that sorting
+ * a list already sorted before under the same alphabet only applies the
+ * cached permutation.
+ *
+ * On a cache miss the delegate's own {@link Sorter#sort(WordList, Comparator)
+ * sort()} runs, so the permutation, and whether equal words keep their
+ * order, is that of the delegate's algorithm.
+ *
+ * The comparator given to {@link #sort(WordList, Comparator) sort()} is
+ * expected to order words by this sorter's alphabet, as an
+ * {@link AlphabetComparator} does. Lists are recognized by fingerprint only,
+ * so a cached permutation may belong to another list whose fingerprint
+ * collides, as described by {@link PermutationCache}. It is therefore only
+ * used if the comparator finds every word in order after applying it,
+ * which costs one comparison per word; otherwise the list is sorted by the
+ * delegate and its permutation replaces the cached one.
+ *
+ * @author Jack Croghan
+ */
+public class CachingSorter extends Sorter
+{
+  /**
+   * The sorter used on cache misses.
+   */
+  private final Sorter delegate;
+
+  /**
+   * The alphabet the sorted words are ordered by.
+   */
+  private final Alphabet alphabet;
+
+  /**
+   * The cache holding the permutations.
+   */
+  private final PermutationCache cache;
+
+  /**
+   * The number of sorts served from the cache.
+   */
+  private long cacheHits;
+
+  /**
+   * The nanoseconds spent on sorts served from the cache.
+   */
+  private long cacheHitTime;
+
+  /**
+   * The number of sorts performed by the delegate sorter.
+   */
+  private long actualSorts;
+
+  /**
+   * The nanoseconds spent on sorts performed by the delegate sorter.
+   */
+  private long actualSortTime;
+
+
+  /**
+   * Constructs a sorter memoizing the permutations produced by the given
+   * sorter in the given cache.
+   *
+   * @param delegate
+   *   the sorter used on cache misses
+   * @param alphabet
+   *   the alphabet the sorted words are ordered by
+   * @param cache
+   *   the cache holding the permutations
+   * @throws NullPointerException
+   *   if any of {@code delegate}, {@code alphabet} or {@code cache} are
+   *   {@code null}
+   */
+  public CachingSorter(Sorter delegate, Alphabet alphabet, PermutationCache cache) throws NullPointerException
+  {
+    if (null == delegate || null == alphabet || null == cache)
+    {
+      throw new NullPointerException();
+    }
+
+    this.delegate = delegate;
+    this.alphabet = alphabet;
+    this.cache = cache;
+  }
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    long startTime = System.nanoTime();
+    long fingerprint = PermutationCache.fingerprint(toSort, alphabet);
+    String[] words = toSort.getArray();
+    String[] unsorted = words.clone();
+    int[] permutation = cache.get(fingerprint, words.length);
+
+    // Any sorted arrangement of the words is a correct sort of them, so
+    // checking the order guards against permutations of colliding lists.
+    boolean hit = false;
+    if (null != permutation)
+    {
+      permute(unsorted, permutation, words);
+      hit = isSorted(words, comp);
+    }
+    if (!hit)
+    {
+      permutation = delegatePermutation(unsorted, comp);
+      cache.put(fingerprint, permutation);
+      permute(unsorted, permutation, words);
+    }
+
+    if (hit)
+    {
+      ++cacheHits;
+      cacheHitTime += System.nanoTime() - startTime;
+    }
+    else
+    {
+      ++actualSorts;
+      actualSortTime += System.nanoTime() - startTime;
+    }
+  }
+
+  /**
+   * Returns the permutation that sorts the given words, found by having the
+   * delegate sort a copy of them. Each word of the copy is a distinct object
+   * mapped to its index, so the permutation can be read back from wherever
+   * the delegate moved the words.
+   */
+  private int[] delegatePermutation(String[] words, Comparator<String> comp)
+  {
+    String[] tagged = new String[words.length];
+    IdentityHashMap<String, Integer> indices = new IdentityHashMap<>(words.length);
+    for (int i = 0; i < words.length; ++i)
+    {
+      tagged[i] = new String(words[i]);
+      indices.put(tagged[i], i);
+    }
+
+    WordList copy = new WordList(tagged);
+    delegate.sort(copy, comp);
+
+    int[] permutation = new int[words.length];
+    for (int i = 0; i < permutation.length; ++i)
+    {
+      permutation[i] = indices.get(copy.get(i));
+    }
+    return permutation;
+  }
+
+  /**
+   * Stores in {@code words} the given unsorted words arranged by the given
+   * permutation.
+   */
+  private static void permute(String[] unsorted, int[] permutation, String[] words)
+  {
+    for (int i = 0; i < words.length; ++i)
+    {
+      words[i] = unsorted[permutation[i]];
+    }
+  }
+
+  /**
+   * Returns whether every word of the given array is in order with the next
+   * according to the given comparator.
+   */
+  private static boolean isSorted(String[] words, Comparator<String> comp)
+  {
+    for (int i = 1; i < words.length; ++i)
+    {
+      if (comp.compare(words[i - 1], words[i]) > 0)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String getName()
+  {
+    return super.getName() + "(" + delegate.getName() + ")";
+  }
+
+  /**
+   * Returns the number of sorts served from the cache.
+   *
+   * @return
+   *   the number of cache hits
+   */
+  public long getCacheHits()
+  {
+    return cacheHits;
+  }
+
+  /**
+   * Returns the total time, in milliseconds, spent on sorts served from the
+   * cache.
+   *
+   * @return
+   *   the total time spent on cache hits
+   */
+  public double getCacheHitTime()
+  {
+    return cacheHitTime / 1000000.00;
+  }
+
+  /**
+   * Returns the number of sorts performed by the delegate sorter.
+   *
+   * @return
+   *   the number of actual sorts
+   */
+  public long getActualSorts()
+  {
+    return actualSorts;
+  }
+
+  /**
+   * Returns the total time, in milliseconds, spent on sorts performed by the
+   * delegate sorter, including computing and caching their permutations.
+   *
+   * @return
+   *   the total time spent on actual sorts
+   */
+  public double getActualSortTime()
+  {
+    return actualSortTime / 1000000.00;
+  }
+}
@@ -0,0 +1,284 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A bounded cache of collation keys, evicting the least recently used key
+ * once full.
+ *
+ * The collation key of a word under an {@link Alphabet} is a byte array
+ * holding the position of each of its characters, each written big-endian in
+ * the fewest bytes able to hold every position of the alphabet. Comparing
+ * two keys as unsigned bytes, with a shorter key ordered before any key it is
+ * a prefix of, orders them exactly as an {@link AlphabetComparator} over the
+ * same alphabet orders the words.
+ *
+ * Keys are cached per alphabet instance and word. All methods are
+ * synchronized, so a cache may be shared between threads.
+ *
+ * @author Jack Croghan
+ */
+public class CollationKeyCache
+{
+  /**
+   * The cached keys, in order from least to most recently used.
+   */
+  private final LinkedHashMap<Entry, byte[]> keys;
+
+  /**
+   * The maximum number of keys held by the cache.
+   */
+  private final int capacity;
+
+  /**
+   * The number of requested keys that were already cached.
+   */
+  private long hits;
+
+  /**
+   * The number of requested keys that had to be computed.
+   */
+  private long misses;
+
+  /**
+   * The number of keys evicted to make room for new ones.
+   */
+  private long evictions;
+
+
+  /**
+   * Constructs an empty cache holding at most the given number of keys.
+   *
+   * @param capacity
+   *   the maximum number of keys held by the cache
+   * @throws IllegalArgumentException
+   *   if {@code capacity} is not positive
+   */
+  public CollationKeyCache(int capacity) throws IllegalArgumentException
+  {
+    if (capacity <= 0)
+    {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+
+    this.capacity = capacity;
+    this.keys = new LinkedHashMap<>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Entry, byte[]> eldest)
+      {
+        if (size() > CollationKeyCache.this.capacity)
+        {
+          ++evictions;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+
+  /**
+   * Returns the collation key of the given word under the given alphabet,
+   * computing and caching it if it is not already cached.
+   * The returned array must not be modified.
+   *
+   * @param alphabet
+   *   the alphabet used to order words
+   * @param word
+   *   the word of which to get the key
+   * @return
+   *   the collation key of {@code word}
+   * @throws NullPointerException
+   *   if either of {@code alphabet} or {@code word} are {@code null}
+   * @throws IllegalArgumentException
+   *   if {@code word} contains a character not found in {@code alphabet}
+   */
+  public synchronized byte[] getKey(Alphabet alphabet, String word)
+    throws NullPointerException, IllegalArgumentException
+  {
+    Entry entry = new Entry(alphabet, word);
+    byte[] key = keys.get(entry);
+
+    if (null != key)
+    {
+      ++hits;
+      return key;
+    }
+
+    ++misses;
+    key = encode(alphabet, word);
+    keys.put(entry, key);
+    return key;
+  }
+
+  /**
+   * Returns the number of keys currently held by the cache.
+   *
+   * @return
+   *   the number of keys held
+   */
+  public synchronized int size()
+  {
+    return keys.size();
+  }
+
+  /**
+   * Returns the number of requested keys that were already cached.
+   *
+   * @return
+   *   the number of cache hits
+   */
+  public synchronized long getHits()
+  {
+    return hits;
+  }
+
+  /**
+   * Returns the number of requested keys that had to be computed.
+   *
+   * @return
+   *   the number of cache misses
+   */
+  public synchronized long getMisses()
+  {
+    return misses;
+  }
+
+  /**
+   * Returns the number of keys evicted to keep the cache within its
+   * capacity.
+   *
+   * @return
+   *   the number of evictions
+   */
+  public synchronized long getEvictions()
+  {
+    return evictions;
+  }
+
+  /**
+   * Returns the fraction of requested keys that were already cached, or zero
+   * if no keys have been requested.
+   *
+   * @return
+   *   the hit rate of the cache
+   */
+  public synchronized double getHitRate()
+  {
+    long requests = hits + misses;
+    return 0 == requests ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * Removes every key from the cache and resets its statistics.
+   */
+  public synchronized void clear()
+  {
+    keys.clear();
+    hits = 0;
+    misses = 0;
+    evictions = 0;
+  }
+
+
+  /**
+   * Computes the collation key of the given word under the given alphabet,
+   * without consulting any cache.
+   *
+   * @param alphabet
+   *   the alphabet used to order words
+   * @param word
+   *   the word of which to compute the key
+   * @return
+   *   the collation key of {@code word}
+   * @throws NullPointerException
+   *   if either of {@code alphabet} or {@code word} are {@code null}
+   * @throws IllegalArgumentException
+   *   if {@code word} contains a character not found in {@code alphabet}
+   */
+  public static byte[] encode(Alphabet alphabet, String word) throws NullPointerException, IllegalArgumentException
+  {
+    int width = bytesPerPosition(alphabet);
+    int[] positions = new int[word.length()];
+    int count = alphabet.getPositions(word, positions);
+    byte[] key = new byte[count * width];
+
+    int k = 0;
+    for (int i = 0; i < count; ++i)
+    {
+      int pos = positions[i];
+      if (pos < 0)
+      {
+        throw new IllegalArgumentException();
+      }
+
+      for (int shift = 8 * (width - 1); shift >= 0; shift -= 8)
+      {
+        key[k++] = (byte) (pos >>> shift);
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Returns the number of bytes used to write each position of the given
+   * alphabet in a key.
+   */
+  private static int bytesPerPosition(Alphabet alphabet)
+  {
+    int maxPos = alphabet.size() - 1;
+    int width = 1;
+    while (width < 4 && maxPos >>> (8 * width) != 0)
+    {
+      ++width;
+    }
+    return width;
+  }
+
+
+  /**
+   * A PODT class identifying a cached key by its alphabet instance and word.
+   */
+  private static class Entry
+  {
+    /**
+     * The alphabet the key is computed under.
+     */
+    private final Alphabet alphabet;
+
+    /**
+     * The word the key is computed for.
+     */
+    private final String word;
+
+    Entry(Alphabet alphabet, String word)
+    {
+      if (null == alphabet || null == word)
+      {
+        throw new NullPointerException();
+      }
+
+      this.alphabet = alphabet;
+      this.word = word;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (null == obj || this.getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      Entry o = (Entry) obj;
+
+      return this.alphabet == o.alphabet && this.word.equals(o.word);
+    }
+
+    @Override
+    public int hashCode(){
+      return 31 * System.identityHashCode(alphabet) + word.hashCode();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * An implementation of {@link Sorter} that sorts the list by the collation
+ * keys of its words, taken from a {@link CollationKeyCache}, so that
+ * repeatedly sorting the same words only compares byte arrays.
+ *
+ * The comparator given to {@link #sort(WordList, Comparator) sort()} is not
+ * consulted; the keys order the words exactly as an
+ * {@link AlphabetComparator} over this sorter's alphabet would.
+ *
+ * @author Jack Croghan
+ */
+public class CollationKeySorter extends Sorter
+{
+  /**
+   * The alphabet used to order words.
+   */
+  private final Alphabet alphabet;
+
+  /**
+   * The cache holding the keys of the words.
+   */
+  private final CollationKeyCache cache;
+
+
+  /**
+   * Constructs a sorter ordering words by the given alphabet, using keys from
+   * the given cache.
+   *
+   * @param alphabet
+   *   the alphabet used to order words
+   * @param cache
+   *   the cache holding collation keys
+   * @throws NullPointerException
+   *   if either of {@code alphabet} or {@code cache} are {@code null}
+   */
+  public CollationKeySorter(Alphabet alphabet, CollationKeyCache cache) throws NullPointerException
+  {
+    if (null == alphabet || null == cache)
+    {
+      throw new NullPointerException();
+    }
+
+    this.alphabet = alphabet;
+    this.cache = cache;
+  }
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    String[] words = toSort.getArray();
+    byte[][] keys = new byte[words.length][];
+    for (int i = 0; i < words.length; ++i)
+    {
+      keys[i] = cache.getKey(alphabet, words[i]);
+    }
+
+    int[] indices = new int[words.length];
+    for (int i = 0; i < indices.length; ++i)
+    {
+      indices[i] = i;
+    }
+    mergeSortIndices(indices, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+
+    String[] unsorted = words.clone();
+    for (int i = 0; i < words.length; ++i)
+    {
+      words[i] = unsorted[indices[i]];
+    }
+  }
+
+  /**
+   * Returns the cache holding the keys used by this sorter.
+   *
+   * @return
+   *   the cache used by this sorter
+   */
+  public CollationKeyCache getCache()
+  {
+    return cache;
+  }
+}
@@ -0,0 +1,291 @@
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * An implementation of {@link Sorter} that performs three-way quick sort,
+ * which gathers equal words together instead of recursing on them, and can
+ * also collapse a list into its distinct words with their counts.
+ *
+ * @author Jack Croghan
+ */
+public class DistinctSorter extends Sorter
+{
+  /**
+   * Ranges of at least this many words are partitioned around Tukey's
+   * ninther rather than the median of three words.
+   */
+  private static final int NINTHER_THRESHOLD = 40;
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    quickSortRec(toSort, comp, 0, toSort.length() - 1);
+  }
+
+  /**
+   * Returns the distinct words of the given list in the order given by the
+   * given comparator, each paired with the number of times it appears.
+   * The contents of the given list <b>are not</b> modified.
+   *
+   * Identical words are counted by hashing, and any remaining words the
+   * comparator considers equal are merged as they are partitioned, so the
+   * number of comparisons and the memory used grow with the number of
+   * distinct words rather than the length of the list.
+   *
+   * @param words
+   *   the list to count the words of
+   * @param comp
+   *   the comparator to use to compare words
+   * @return
+   *   the distinct words and their counts, in order
+   * @throws NullPointerException
+   *   if either of {@code words} or {@code comp} are {@code null}
+   */
+  public WordCount[] sortDistinct(WordList words, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    // Identical words always compare as equal, so they are collapsed by
+    // hashing before any comparison is made.
+    HashMap<String, Integer> occurrences = new HashMap<>();
+    for (String word : words.getArray())
+    {
+      occurrences.merge(word, 1, Integer::sum);
+    }
+
+    String[] distinct = new String[occurrences.size()];
+    int[] counts = new int[distinct.length];
+    int n = 0;
+    for (Map.Entry<String, Integer> entry : occurrences.entrySet())
+    {
+      distinct[n] = entry.getKey();
+      counts[n] = entry.getValue();
+      ++n;
+    }
+
+    n = collapse(distinct, counts, comp, 0, n - 1, 0);
+
+    WordCount[] result = new WordCount[n];
+    for (int i = 0; i < n; ++i)
+    {
+      result[i] = new WordCount(distinct[i], counts[i]);
+    }
+    return result;
+  }
+
+  private void quickSortRec(WordList list, Comparator<String> comp, int start, int end)
+  {
+    // Recursing on the smaller part and looping on the larger keeps the
+    // recursion no deeper than the logarithm of the length of the list.
+    while (start < end)
+    {
+      // Partition into words less than, equal to, and greater than the
+      // pivot, so runs of equal words are never recursed on.
+      String pivot = list.get(pivotIndex(list.getArray(), comp, start, end));
+      int lt = start;
+      int gt = end;
+      int i = start;
+
+      while (i <= gt)
+      {
+        int c = comp.compare(list.get(i), pivot);
+        if (c < 0)
+        {
+          list.swap(lt++, i++);
+        }
+        else if (c > 0)
+        {
+          list.swap(i, gt--);
+        }
+        else
+        {
+          ++i;
+        }
+      }
+
+      if (lt - start < end - gt)
+      {
+        quickSortRec(list, comp, start, lt - 1);
+        start = gt + 1;
+      }
+      else
+      {
+        quickSortRec(list, comp, gt + 1, end);
+        end = lt - 1;
+      }
+    }
+  }
+
+  /**
+   * Sorts the words from index {@code start} to index {@code end},
+   * inclusive, collapsing equal words into one entry whose count is the sum
+   * of theirs, and moves the distinct entries to start at index {@code to}.
+   * Returns the index after the last distinct entry.
+   */
+  private int collapse(String[] words, int[] counts, Comparator<String> comp, int start, int end, int to)
+  {
+    if (start > end)
+    {
+      return to;
+    }
+
+    String pivot = words[pivotIndex(words, comp, start, end)];
+    int pivotCount = 0;
+    int lt = start;
+    int gt = end;
+    int i = start;
+
+    // Three-way partition, folding every word equal to the pivot into a
+    // single count instead of keeping it.
+    while (i <= gt)
+    {
+      int c = comp.compare(words[i], pivot);
+      if (c < 0)
+      {
+        swap(words, counts, lt++, i++);
+      }
+      else if (c > 0)
+      {
+        swap(words, counts, i, gt--);
+      }
+      else
+      {
+        pivotCount += counts[i];
+        ++i;
+      }
+    }
+
+    to = collapse(words, counts, comp, start, lt - 1, to);
+    words[to] = pivot;
+    counts[to] = pivotCount;
+    ++to;
+
+    // The greater words are still where partitioning left them, so move
+    // them down to follow the collapsed entries before recursing.
+    int greater = end - gt;
+    System.arraycopy(words, gt + 1, words, to, greater);
+    System.arraycopy(counts, gt + 1, counts, to, greater);
+    return collapse(words, counts, comp, to, to + greater - 1, to);
+  }
+
+  /**
+   * Returns the index of the word to partition the words from index
+   * {@code start} to index {@code end}, inclusive, around: the median of the
+   * first, middle and last words of short ranges, and Tukey's ninther, the
+   * median of the medians of three evenly spaced groups of three words, of
+   * longer ones. Unlike the middle word alone, these split ordered stretches
+   * such as organ-pipe lists roughly in half.
+   */
+  private static int pivotIndex(String[] words, Comparator<String> comp, int start, int end)
+  {
+    int mid = start + (end - start) / 2;
+    if (end - start + 1 < NINTHER_THRESHOLD)
+    {
+      return median(words, comp, start, mid, end);
+    }
+
+    int step = (end - start) / 8;
+    return median(words, comp,
+                  median(words, comp, start, start + step, start + 2 * step),
+                  median(words, comp, mid - step, mid, mid + step),
+                  median(words, comp, end - 2 * step, end - step, end));
+  }
+
+  /**
+   * Returns whichever of the given indices holds the median of the three
+   * words they index.
+   */
+  private static int median(String[] words, Comparator<String> comp, int a, int b, int c)
+  {
+    if (comp.compare(words[a], words[b]) < 0)
+    {
+      if (comp.compare(words[b], words[c]) < 0)
+      {
+        return b;
+      }
+      return comp.compare(words[a], words[c]) < 0 ? c : a;
+    }
+    if (comp.compare(words[b], words[c]) > 0)
+    {
+      return b;
+    }
+    return comp.compare(words[a], words[c]) > 0 ? c : a;
+  }
+
+  private static void swap(String[] words, int[] counts, int a, int b)
+  {
+    String word = words[a];
+    words[a] = words[b];
+    words[b] = word;
+
+    int count = counts[a];
+    counts[a] = counts[b];
+    counts[b] = count;
+  }
+
+
+  /**
+   * A PODT class pairing a word with the number of times it appears.
+   */
+  public static class WordCount
+  {
+    /**
+     * The word.
+     */
+    public final String word;
+
+    /**
+     * The number of times the word appears.
+     */
+    public final int count;
+
+
+    /**
+     * Constructs and initializes the pair with the given values.
+     *
+     * @param word
+     *   the word
+     * @param count
+     *   the number of times the word appears
+     */
+    public WordCount(String word, int count)
+    {
+      this.word = word;
+      this.count = count;
+    }
+
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (null == obj || this.getClass() != obj.getClass())
+      {
+        return false;
+      }
+
+      WordCount o = (WordCount) obj;
+
+      return this.word.equals(o.word) && this.count == o.count;
+    }
+
+    @Override
+    public int hashCode(){
+      return word.hashCode() ^ count;
+    }
+
+    @Override public String toString(){
+      return "{" + word + ", " + count + "}";
+    }
+  }
+}
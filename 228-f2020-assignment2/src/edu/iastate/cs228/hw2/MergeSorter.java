@@ -3,12 +3,42 @@ import java.util.Comparator;
 
 /**
  * An implementation of {@link Sorter} that performs merge sort
- * to sort the list.
+ * to sort the list, optionally binary insertion sorting short ranges.
  * 
  * @author Jack Croghan
  */
 public class MergeSorter extends Sorter
 {
+  /**
+   * The length of the longest range binary insertion sorted rather than
+   * split and merged.
+   */
+  private final int cutoff;
+
+
+  /**
+   * Constructs a sorter that performs plain merge sort, without binary
+   * insertion sorting any range.
+   */
+  public MergeSorter()
+  {
+    this(1);
+  }
+
+  /**
+   * Constructs a sorter that binary insertion sorts ranges of at most the
+   * given number of words.
+   *
+   * @param cutoff
+   *   the length of the longest range binary insertion sorted; at most one
+   *   to always merge sort
+   */
+  public MergeSorter(int cutoff)
+  {
+    this.cutoff = cutoff;
+  }
+
+
   @Override
   public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
   {
@@ -17,7 +47,11 @@ public class MergeSorter extends Sorter
 
   private void mergeSortRec(WordList list, Comparator<String> comp, int start, int end)
   {
-    if (start < end)
+    if (start < end && end - start < cutoff)
+    {
+      BinaryInsertionSorter.sortRange(list.getArray(), start, end + 1, comp);
+    }
+    else if (start < end)
     {
       int mid = (start + end) / 2;
       mergeSortRec(list, comp, start, mid);
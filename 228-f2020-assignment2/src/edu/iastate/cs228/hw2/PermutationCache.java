@@ -0,0 +1,313 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A bounded cache of sort permutations, keyed by a fingerprint of the
+ * contents of a {@link WordList} and the {@link Alphabet} it was sorted
+ * under. The least recently used permutation is evicted once the cache is
+ * full.
+ *
+ * A cache may optionally be backed by a directory, in which case every
+ * permutation added is also written to disk, and permutations missing from
+ * memory are looked for there. Each file holds, big-endian:
+ *  - the magic number {@code PERM}
+ *  - the fingerprint
+ *  - the length of the permutation
+ *  - the elements of the permutation
+ *
+ * Files that are truncated, belong to another fingerprint, or do not hold a
+ * permutation of their length are ignored, as if missing.
+ *
+ * Lists are identified by their 64-bit FNV-1a fingerprint alone; the words
+ * themselves are not stored or compared. Two lists of the same length whose
+ * fingerprints collide therefore share a permutation, so a permutation
+ * returned by {@link #get(long, int)} may belong to another list. Users must
+ * check that it does sort their list, and {@link #put(long, int[]) put} the
+ * right one in its place if not, as {@link CachingSorter} does.
+ *
+ * All methods are synchronized, so a cache may be shared between threads.
+ *
+ * @author Jack Croghan
+ */
+public class PermutationCache
+{
+  /**
+   * The magic number starting every permutation file.
+   */
+  private static final int MAGIC = 0x5045524D;
+
+  /**
+   * The number of bytes preceding the elements in a permutation file.
+   */
+  private static final int HEADER_SIZE = 16;
+
+  /**
+   * The cached permutations, keyed by fingerprint, in order from least to
+   * most recently used.
+   */
+  private final LinkedHashMap<Long, int[]> permutations;
+
+  /**
+   * The directory backing the cache, or {@code null} if the cache is only
+   * held in memory.
+   */
+  private final File directory;
+
+  /**
+   * The number of requested permutations that were found.
+   */
+  private long hits;
+
+  /**
+   * The number of requested permutations that were not found.
+   */
+  private long misses;
+
+
+  /**
+   * Constructs an empty cache held only in memory.
+   *
+   * @param capacity
+   *   the maximum number of permutations held in memory
+   * @throws IllegalArgumentException
+   *   if {@code capacity} is not positive
+   */
+  public PermutationCache(int capacity) throws IllegalArgumentException
+  {
+    this(capacity, null);
+  }
+
+  /**
+   * Constructs a cache backed by the given directory, which is created if it
+   * does not exist.
+   *
+   * @param capacity
+   *   the maximum number of permutations held in memory
+   * @param directory
+   *   the directory holding permutation files, or {@code null} to hold the
+   *   cache only in memory
+   * @throws IllegalArgumentException
+   *   if {@code capacity} is not positive
+   * @throws UncheckedIOException
+   *   if {@code directory} does not exist and cannot be created
+   */
+  public PermutationCache(int capacity, File directory) throws IllegalArgumentException
+  {
+    if (capacity <= 0)
+    {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    if (null != directory && !directory.isDirectory() && !directory.mkdirs())
+    {
+      throw new UncheckedIOException(new IOException("Cannot create directory " + directory));
+    }
+
+    this.directory = directory;
+    this.permutations = new LinkedHashMap<>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest)
+      {
+        return size() > capacity;
+      }
+    };
+  }
+
+
+  /**
+   * Returns the permutation cached for the given fingerprint, or
+   * {@code null} if none is cached. Element {@code i} of the permutation is
+   * the index in the unsorted list of the word at index {@code i} once
+   * sorted. The returned array must not be modified.
+   *
+   * @param fingerprint
+   *   the fingerprint of the words and alphabet, as returned by
+   *   {@link #fingerprint(WordList, Alphabet)}
+   * @param length
+   *   the number of words
+   * @return
+   *   the cached permutation, or {@code null} if none is cached
+   * @throws UncheckedIOException
+   *   if a permutation file exists but cannot be read
+   */
+  public synchronized int[] get(long fingerprint, int length)
+  {
+    int[] permutation = permutations.get(fingerprint);
+
+    if (null == permutation && null != directory)
+    {
+      permutation = read(fingerprint);
+      if (null != permutation)
+      {
+        permutations.put(fingerprint, permutation);
+      }
+    }
+
+    if (null == permutation || permutation.length != length)
+    {
+      ++misses;
+      return null;
+    }
+    ++hits;
+    return permutation;
+  }
+
+  /**
+   * Caches the given permutation for the given fingerprint, writing it to
+   * disk if the cache is backed by a directory.
+   *
+   * @param fingerprint
+   *   the fingerprint of the words and alphabet
+   * @param permutation
+   *   the permutation sorting the words, which must not be modified
+   *   afterwards
+   * @throws UncheckedIOException
+   *   if the permutation file cannot be written
+   */
+  public synchronized void put(long fingerprint, int[] permutation)
+  {
+    permutations.put(fingerprint, permutation);
+    if (null != directory)
+    {
+      write(fingerprint, permutation);
+    }
+  }
+
+  /**
+   * Returns the number of permutations found in the cache.
+   *
+   * @return
+   *   the number of cache hits
+   */
+  public synchronized long getHits()
+  {
+    return hits;
+  }
+
+  /**
+   * Returns the number of permutations not found in the cache.
+   *
+   * @return
+   *   the number of cache misses
+   */
+  public synchronized long getMisses()
+  {
+    return misses;
+  }
+
+
+  /**
+   * Returns a 64-bit fingerprint of the contents of the given list and the
+   * given alphabet, to identify the permutation sorting the list.
+   *
+   * @param words
+   *   the list to fingerprint
+   * @param alphabet
+   *   the alphabet the list is sorted under
+   * @return
+   *   the fingerprint of {@code words} under {@code alphabet}
+   * @throws NullPointerException
+   *   if either of {@code words} or {@code alphabet} are {@code null}
+   */
+  public static long fingerprint(WordList words, Alphabet alphabet) throws NullPointerException
+  {
+    long hash = Alphabet.fnv(Alphabet.FNV_OFFSET_BASIS, alphabet.fingerprint(), 8);
+    hash = Alphabet.fnv(hash, words.length(), 4);
+
+    for (String word : words.getArray())
+    {
+      hash = Alphabet.fnv(hash, word.length(), 4);
+      for (int i = 0; i < word.length(); ++i)
+      {
+        hash = Alphabet.fnv(hash, word.charAt(i), 2);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the file holding the permutation with the given fingerprint.
+   */
+  private File fileFor(long fingerprint)
+  {
+    return new File(directory, String.format("%016x.perm", fingerprint));
+  }
+
+  /**
+   * Reads the permutation with the given fingerprint from disk, returning
+   * {@code null} if there is no such file, it is not a permutation file for
+   * the fingerprint, or its elements are not a permutation.
+   */
+  private int[] read(long fingerprint)
+  {
+    File file = fileFor(fingerprint);
+    if (!file.isFile())
+    {
+      return null;
+    }
+
+    try
+    {
+      ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+      if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getLong() != fingerprint)
+      {
+        return null;
+      }
+
+      int length = in.getInt();
+      if (length < 0 || in.remaining() != 4L * length)
+      {
+        return null;
+      }
+
+      int[] permutation = new int[length];
+      in.asIntBuffer().get(permutation);
+
+      boolean[] seen = new boolean[length];
+      for (int idx : permutation)
+      {
+        if (idx < 0 || idx >= length || seen[idx])
+        {
+          return null;
+        }
+        seen[idx] = true;
+      }
+      return permutation;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes the given permutation to disk.
+   */
+  private void write(long fingerprint, int[] permutation)
+  {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(fileFor(fingerprint)))))
+    {
+      out.writeInt(MAGIC);
+      out.writeLong(fingerprint);
+      out.writeInt(permutation.length);
+      for (int idx : permutation)
+      {
+        out.writeInt(idx);
+      }
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+import java.util.Comparator;
+
+
+/**
+ * An implementation of {@link Sorter} that sorts the indices of the words
+ * by a key packing the positions of their first few characters into a
+ * {@code long}, and only compares the words themselves when their keys tie.
+ * The list is rearranged once, after the indices are sorted.
+ *
+ * The comparator given to {@link #sort(WordList, Comparator) sort()} must
+ * order words by this sorter's alphabet, as an {@link AlphabetComparator}
+ * does; it is only consulted to break ties between keys.
+ *
+ * @author Jack Croghan
+ */
+public class PrefixKeySorter extends Sorter
+{
+  /**
+   * The alphabet used to build keys.
+   */
+  private final Alphabet alphabet;
+
+  /**
+   * The number of bits used for each character in a key.
+   */
+  private final int bitsPerChar;
+
+  /**
+   * The number of characters held by a key.
+   */
+  private final int charsPerKey;
+
+
+  /**
+   * Constructs a sorter building keys from the given alphabet.
+   *
+   * @param alphabet
+   *   the alphabet the sorted words are ordered by
+   * @throws NullPointerException
+   *   if {@code alphabet} is {@code null}
+   */
+  public PrefixKeySorter(Alphabet alphabet) throws NullPointerException
+  {
+    this.alphabet = alphabet;
+
+    // Each character is stored as its position plus one, leaving zero to
+    // mark the end of a word, so shorter words order first. The sign bit is
+    // never used, so keys compare correctly as signed values.
+    bitsPerChar = Math.max(1, 32 - Integer.numberOfLeadingZeros(alphabet.size()));
+    charsPerKey = 63 / bitsPerChar;
+  }
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    String[] words = toSort.getArray();
+    int[] indices = sortedPermutation(toSort, comp);
+
+    String[] sorted = new String[words.length];
+    for (int i = 0; i < words.length; ++i)
+    {
+      sorted[i] = words[indices[i]];
+    }
+    System.arraycopy(sorted, 0, words, 0, words.length);
+  }
+
+  @Override
+  public int[] sortedPermutation(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    String[] words = toSort.getArray();
+    int n = words.length;
+
+    long[] keys = new long[n];
+    int[] indices = new int[n];
+    boolean[] complete = new boolean[n];
+    for (int i = 0; i < n; ++i)
+    {
+      keys[i] = key(words[i], complete, i);
+      indices[i] = i;
+    }
+
+    mergeSort(keys, indices, keys.clone(), indices.clone(), 0, n, words, complete, comp);
+    return indices;
+  }
+
+  /**
+   * Returns the key of the given word, and records in {@code complete}
+   * whether the key holds the whole word.
+   *
+   * @throws IllegalArgumentException
+   *   if a character of the key is not found in the alphabet
+   */
+  private long key(String word, boolean[] complete, int idx) throws IllegalArgumentException
+  {
+    long key = 0;
+    int chars = 0;
+    int i = 0;
+
+    while (chars < charsPerKey && i < word.length())
+    {
+      int codePoint = word.codePointAt(i);
+      int pos = alphabet.getPosition(codePoint);
+      if (pos < 0)
+      {
+        throw new IllegalArgumentException();
+      }
+
+      key = key << bitsPerChar | (pos + 1);
+      ++chars;
+      i += Character.charCount(codePoint);
+    }
+
+    // A word shorter than a key ends with a zero, so no other word can share
+    // the key.
+    complete[idx] = chars < charsPerKey;
+    return key << (bitsPerChar * (charsPerKey - chars));
+  }
+
+  /**
+   * Merge sorts the (key, index) pairs over the given range, as
+   * {@link Sorter#mergeSortIndices(int[], IndexComparator)} does for indices
+   * alone. The keys move along with their indices, rather than being looked
+   * up through them, so merging reads both arrays sequentially.
+   */
+  private static void mergeSort(long[] keys, int[] indices, long[] keyScratch, int[] indexScratch,
+                                int start, int end, String[] words, boolean[] complete,
+                                Comparator<String> comp)
+  {
+    if (end - start < 2)
+    {
+      return;
+    }
+
+    int mid = (start + end) >>> 1;
+    mergeSort(keyScratch, indexScratch, keys, indices, start, mid, words, complete, comp);
+    mergeSort(keyScratch, indexScratch, keys, indices, mid, end, words, complete, comp);
+
+    int left = start;
+    int right = mid;
+    for (int i = start; i < end; ++i)
+    {
+      boolean takeLeft;
+      if (right >= end)
+      {
+        takeLeft = true;
+      }
+      else if (left >= mid)
+      {
+        takeLeft = false;
+      }
+      else if (keyScratch[left] != keyScratch[right])
+      {
+        takeLeft = keyScratch[left] < keyScratch[right];
+      }
+      else
+      {
+        int a = indexScratch[left];
+        int b = indexScratch[right];
+        takeLeft = complete[a] || comp.compare(words[a], words[b]) <= 0;
+      }
+
+      if (takeLeft)
+      {
+        keys[i] = keyScratch[left];
+        indices[i] = indexScratch[left];
+        ++left;
+      }
+      else
+      {
+        keys[i] = keyScratch[right];
+        indices[i] = indexScratch[right];
+        ++right;
+      }
+    }
+  }
+}
@@ -0,0 +1,112 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * An implementation of {@link Sorter} that performs Shell sort to sort the
+ * list, insertion sorting words a decreasing gap apart.
+ *
+ * By default the gaps are those found empirically by Ciura, extended for
+ * long lists by repeatedly multiplying the largest gap by 2.25.
+ *
+ * @author Jack Croghan
+ */
+public class ShellSorter extends Sorter
+{
+  /**
+   * The gaps found by Ciura, in increasing order.
+   */
+  private static final int[] CIURA_GAPS = {1, 4, 10, 23, 57, 132, 301, 701, 1750};
+
+
+  /**
+   * The gaps used, in increasing order, or {@code null} to use the extended
+   * Ciura gaps.
+   */
+  private final int[] gaps;
+
+
+  /**
+   * Constructs a sorter using the extended Ciura gaps.
+   */
+  public ShellSorter()
+  {
+    gaps = null;
+  }
+
+  /**
+   * Constructs a sorter using the given gaps.
+   *
+   * @param gaps
+   *   the gaps to use, in strictly increasing order, starting with one
+   * @throws NullPointerException
+   *   if {@code gaps} is {@code null}
+   * @throws IllegalArgumentException
+   *   if {@code gaps} does not start with one or is not strictly increasing
+   */
+  public ShellSorter(int[] gaps) throws NullPointerException, IllegalArgumentException
+  {
+    if (0 == gaps.length || 1 != gaps[0])
+    {
+      throw new IllegalArgumentException("The first gap must be one");
+    }
+    for (int i = 1; i < gaps.length; ++i)
+    {
+      if (gaps[i] <= gaps[i - 1])
+      {
+        throw new IllegalArgumentException("Gaps must be strictly increasing");
+      }
+    }
+
+    this.gaps = gaps.clone();
+  }
+
+
+  @Override
+  public void sort(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    String[] words = toSort.getArray();
+    int[] sequence = null == gaps ? ciuraGaps(words.length) : gaps;
+
+    for (int g = sequence.length - 1; g >= 0; --g)
+    {
+      int gap = sequence[g];
+      for (int i = gap; i < words.length; ++i)
+      {
+        String temp = words[i];
+        int j = i;
+        while (j >= gap && comp.compare(words[j - gap], temp) > 0)
+        {
+          words[j] = words[j - gap];
+          j -= gap;
+        }
+        words[j] = temp;
+      }
+    }
+  }
+
+  /**
+   * Returns the Ciura gaps less than the given length, extended as needed.
+   */
+  private static int[] ciuraGaps(int length)
+  {
+    int[] sequence = CIURA_GAPS;
+    while (sequence[sequence.length - 1] < length)
+    {
+      sequence = Arrays.copyOf(sequence, sequence.length + 1);
+      sequence[sequence.length - 1] = (int) (sequence[sequence.length - 2] * 2.25);
+    }
+
+    int count = 1;
+    while (count < sequence.length && sequence[count] < length)
+    {
+      ++count;
+    }
+    return Arrays.copyOf(sequence, count);
+  }
+}
@@ -0,0 +1,621 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * A long-running process that sorts words on request, so that JVM startup,
+ * class loading, {@link Alphabet} parsing and JIT warm-up are paid once
+ * rather than by every job.
+ *
+ * The daemon listens on the loopback interface only. Each connection may
+ * send any number of requests, each a line of UTF-8 text whose fields are
+ * separated by single spaces, or by tabs if the line holds any, so that file
+ * names may contain spaces:
+ *  - {@code SORT <sorter> <alphabet file> <count>}, followed by
+ *    {@code count} lines each holding a word to sort
+ *  - {@code SORTFILE <sorter> <alphabet file> <word file>}, to sort a word
+ *    file readable by {@link WordList#WordList(String)} or
+ *    {@link WordListFile}
+ *  - {@code STATS}, to report the number of sort requests served and their
+ *    latency percentiles
+ *  - {@code QUIT}, to close the connection
+ *
+ * Sort requests are answered with {@code OK <count>} followed by
+ * {@code count} lines each holding a sorted word, and {@code STATS} with
+ * {@code OK} and a single line of statistics. A failed request is answered
+ * with a single line starting with {@code ERROR}; if the request was
+ * malformed in a way that leaves its payload unknown, such as an invalid word
+ * count, the connection is then closed. The {@code sorter} is the
+ * {@linkplain Sorter#getName() name} of a sorter, such as
+ * {@code MergeSorter}, and the alphabet file is read by
+ * {@link Alphabet#load(String)}.
+ *
+ * Any local user can connect, so files are only read from the directory
+ * the daemon serves: file names are resolved against it, and names leading
+ * outside it, including through symbolic links, are refused. Up to
+ * {@link #MAX_ALPHABETS} alphabets are kept loaded, and an alphabet file is
+ * loaded again once it changes.
+ *
+ * @author Jack Croghan
+ */
+public class SortDaemon implements Closeable
+{
+  /**
+   * The number of latencies kept to compute percentiles from.
+   */
+  private static final int LATENCY_WINDOW = 10000;
+
+  /**
+   * The number of times each sorter sorts a generated list at startup.
+   */
+  private static final int WARMUP_ROUNDS = 200;
+
+  /**
+   * The maximum number of words a single {@code SORT} request may send.
+   */
+  static final int MAX_SORT_WORDS = 1 << 22;
+
+  /**
+   * The maximum number of alphabets kept loaded; the least recently used is
+   * dropped beyond this.
+   */
+  static final int MAX_ALPHABETS = 16;
+
+
+  /**
+   * The real path of the directory files are read from.
+   */
+  private final Path root;
+
+  /**
+   * The loaded alphabets, keyed by real path, in order from least to most
+   * recently used.
+   */
+  private final LinkedHashMap<Path, LoadedAlphabet> alphabets = new LinkedHashMap<>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, LoadedAlphabet> eldest)
+    {
+      return size() > MAX_ALPHABETS;
+    }
+  };
+
+  /**
+   * The most recent sort latencies, in nanoseconds, used as a ring buffer.
+   */
+  private final long[] latencies = new long[LATENCY_WINDOW];
+
+  /**
+   * The number of sort requests served.
+   */
+  private long served;
+
+  /**
+   * The socket connections are accepted on.
+   */
+  private final ServerSocket server;
+
+  /**
+   * The threads serving connections.
+   */
+  private final ExecutorService pool;
+
+  /**
+   * The connections currently open, closed when the daemon is.
+   */
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+
+  /**
+   * Constructs a daemon serving files from the given directory and listening
+   * on the given port of the loopback interface, and warms up every sorter.
+   * Requests are not served until {@link #serve()} is called.
+   *
+   * @param directory
+   *   the directory holding the files requests may name
+   * @param port
+   *   the port to listen on, or zero for any free port
+   * @param threads
+   *   the maximum number of connections served at once
+   * @throws FileNotFoundException
+   *   if {@code directory} is not a directory
+   * @throws IOException
+   *   if the port cannot be listened on
+   */
+  public SortDaemon(File directory, int port, int threads) throws FileNotFoundException, IOException
+  {
+    if (!directory.isDirectory())
+    {
+      throw new FileNotFoundException(directory + " is not a directory");
+    }
+
+    root = directory.toPath().toRealPath();
+    server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    pool = Executors.newFixedThreadPool(threads);
+    warmUp();
+  }
+
+
+  /**
+   * Starts a daemon and serves requests until the process is stopped.
+   *
+   * @param args
+   *   an array expected to contain one to three arguments:
+   *    - the directory holding the files requests may name
+   *    - optionally, the port to listen on; any free port by default
+   *    - optionally, the maximum number of connections served at once
+   */
+  public static void main(String[] args) throws IOException
+  {
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    try (SortDaemon daemon = new SortDaemon(new File(args[0]), port, threads))
+    {
+      System.out.println("Listening on port " + daemon.getPort());
+      daemon.serve();
+    }
+  }
+
+
+  /**
+   * Returns the port the daemon listens on.
+   *
+   * @return
+   *   the port listened on
+   */
+  public int getPort()
+  {
+    return server.getLocalPort();
+  }
+
+  /**
+   * Accepts connections and serves their requests until the daemon is
+   * closed.
+   *
+   * @throws IOException
+   *   if accepting a connection fails for a reason other than the daemon
+   *   being closed
+   */
+  public void serve() throws IOException
+  {
+    while (!server.isClosed())
+    {
+      Socket socket;
+      try
+      {
+        socket = server.accept();
+      }
+      catch (SocketException e)
+      {
+        if (server.isClosed())
+        {
+          return;
+        }
+        throw e;
+      }
+      connections.add(socket);
+      if (server.isClosed())
+      {
+        // The daemon was closed after accepting, possibly after closing the
+        // open connections.
+        socket.close();
+        return;
+      }
+      pool.execute(() -> handle(socket));
+    }
+  }
+
+  /**
+   * Stops accepting connections and closes any open ones, ending any
+   * requests being served.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    server.close();
+    for (Socket socket : connections)
+    {
+      socket.close();
+    }
+    pool.shutdownNow();
+  }
+
+  /**
+   * Returns the given percentiles of the latencies of the most recent sort
+   * requests, in milliseconds.
+   *
+   * @param percentiles
+   *   the percentiles to compute, each between 0 and 100
+   * @return
+   *   the latency at each percentile, or zeros if no request has been served
+   */
+  public double[] getLatencyPercentiles(double... percentiles)
+  {
+    long[] window;
+    synchronized (latencies)
+    {
+      window = Arrays.copyOf(latencies, (int) Math.min(served, LATENCY_WINDOW));
+    }
+    Arrays.sort(window);
+
+    double[] result = new double[percentiles.length];
+    for (int i = 0; i < percentiles.length && window.length > 0; ++i)
+    {
+      int idx = (int) Math.ceil(percentiles[i] / 100 * window.length) - 1;
+      result[i] = window[Math.max(0, Math.min(window.length - 1, idx))] / 1000000.00;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of sort requests served.
+   *
+   * @return
+   *   the number of sort requests served
+   */
+  public long getServed()
+  {
+    synchronized (latencies)
+    {
+      return served;
+    }
+  }
+
+
+  /**
+   * Serves the requests of the given connection until it is closed.
+   */
+  private void handle(Socket socket)
+  {
+    try (Socket s = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+         Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)))
+    {
+      String line;
+      while ((line = in.readLine()) != null && !"QUIT".equals(line))
+      {
+        try
+        {
+          respond(line.split(line.indexOf('\t') >= 0 ? "\t" : " ", -1), in, out);
+        }
+        catch (RuntimeException | FileNotFoundException e)
+        {
+          out.write("ERROR " + e + "\n");
+        }
+        catch (ProtocolException e)
+        {
+          // The rest of the input cannot be told apart from requests.
+          out.write("ERROR " + e + "\n");
+          out.flush();
+          return;
+        }
+        out.flush();
+      }
+    }
+    catch (IOException e)
+    {
+      // The client went away, or the daemon was closed; there is nobody left
+      // to report to.
+    }
+    finally
+    {
+      connections.remove(socket);
+    }
+  }
+
+  /**
+   * Serves a single request.
+   *
+   * @throws ProtocolException
+   *   if the request is malformed such that the length of its payload is
+   *   unknown
+   */
+  private void respond(String[] request, BufferedReader in, Writer out) throws IOException
+  {
+    switch (request[0])
+    {
+      case "SORT":
+      case "SORTFILE":
+      {
+        if (4 != request.length)
+        {
+          String message = "Expected " + request[0] + " <sorter> <alphabet> <words>";
+          if ("SORT".equals(request[0]))
+          {
+            throw new ProtocolException(message);
+          }
+          throw new IllegalArgumentException(message);
+        }
+
+        WordList words;
+        if ("SORT".equals(request[0]))
+        {
+          int count = parseCount(request[3]);
+
+          // The list grows as words arrive, so memory is only committed for
+          // words actually sent.
+          List<String> contents = new ArrayList<>(Math.min(count, 1024));
+          for (int i = 0; i < count; ++i)
+          {
+            String word = in.readLine();
+            if (null == word)
+            {
+              throw new IOException("Connection closed mid-request");
+            }
+            contents.add(word);
+          }
+          words = new WordList(contents.toArray(new String[0]));
+        }
+        else
+        {
+          String filename = resolve(request[3]).toString();
+          if (WordListFile.isWordListFile(filename))
+          {
+            words = WordListFile.open(filename).toWordList();
+          }
+          else
+          {
+            words = new WordList(filename);
+          }
+        }
+
+        long start = System.nanoTime();
+        Alphabet alphabet = alphabet(request[2]);
+        newSorter(request[1], alphabet).sort(words, new AlphabetComparator(alphabet));
+        record(System.nanoTime() - start);
+
+        out.write("OK " + words.length() + "\n");
+        for (String word : words.getArray())
+        {
+          out.write(word);
+          out.write('\n');
+        }
+        break;
+      }
+      case "STATS":
+      {
+        double[] p = getLatencyPercentiles(50, 90, 99, 100);
+        out.write(String.format("OK%nserved=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms%n",
+                                getServed(), p[0], p[1], p[2], p[3]));
+        break;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown request " + request[0]);
+    }
+  }
+
+  /**
+   * Returns the number of words announced by a {@code SORT} request.
+   *
+   * @throws ProtocolException
+   *   if the count is not a number between zero and
+   *   {@link #MAX_SORT_WORDS}
+   */
+  private static int parseCount(String count) throws ProtocolException
+  {
+    try
+    {
+      int n = Integer.parseInt(count);
+      if (n >= 0 && n <= MAX_SORT_WORDS)
+      {
+        return n;
+      }
+    }
+    catch (NumberFormatException e)
+    {
+      // Reported below, as for a count out of range.
+    }
+    throw new ProtocolException("Word count must be between 0 and " + MAX_SORT_WORDS + ": " + count);
+  }
+
+  /**
+   * Returns the real path of the indicated file, resolved against the
+   * directory the daemon serves.
+   *
+   * @throws FileNotFoundException
+   *   if the file does not exist
+   * @throws IllegalArgumentException
+   *   if the file is outside the directory the daemon serves
+   * @throws UncheckedIOException
+   *   if the path of the file cannot be resolved
+   */
+  private Path resolve(String filename) throws FileNotFoundException
+  {
+    Path path;
+    try
+    {
+      path = root.resolve(filename).toRealPath();
+    }
+    catch (NoSuchFileException e)
+    {
+      throw new FileNotFoundException(filename);
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+
+    if (!path.startsWith(root))
+    {
+      throw new IllegalArgumentException(filename + " is outside the served directory");
+    }
+    return path;
+  }
+
+  /**
+   * Returns the alphabet held by the indicated file, loading it if it is
+   * not loaded or the file has changed since it was.
+   */
+  private Alphabet alphabet(String filename) throws FileNotFoundException
+  {
+    Path path = resolve(filename);
+    BasicFileAttributes attributes;
+    try
+    {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+    long modified = attributes.lastModifiedTime().toMillis();
+
+    synchronized (alphabets)
+    {
+      LoadedAlphabet loaded = alphabets.get(path);
+      if (null != loaded && loaded.modified == modified && loaded.size == attributes.size())
+      {
+        return loaded.alphabet;
+      }
+    }
+
+    // Loading happens outside the lock so other requests are not held up.
+    // The attributes were read first, so a change made while loading is
+    // noticed by the next request.
+    Alphabet alphabet = Alphabet.load(path.toString());
+    synchronized (alphabets)
+    {
+      alphabets.put(path, new LoadedAlphabet(alphabet, modified, attributes.size()));
+    }
+    return alphabet;
+  }
+
+  /**
+   * Records the latency of a sort request.
+   */
+  private void record(long nanos)
+  {
+    synchronized (latencies)
+    {
+      latencies[(int) (served % LATENCY_WINDOW)] = nanos;
+      ++served;
+    }
+  }
+
+  /**
+   * Returns a new sorter with the given name, ordering words by the given
+   * alphabet where the sorter needs one.
+   *
+   * @throws IllegalArgumentException
+   *   if there is no sorter with the given name
+   */
+  private static Sorter newSorter(String name, Alphabet alphabet) throws IllegalArgumentException
+  {
+    switch (name)
+    {
+      case "QuickSorter":
+        return new QuickSorter();
+      case "MergeSorter":
+        return new MergeSorter();
+      case "InsertionSorter":
+        return new InsertionSorter();
+      case "BinaryInsertionSorter":
+        return new BinaryInsertionSorter();
+      case "ShellSorter":
+        return new ShellSorter();
+      case "DistinctSorter":
+        return new DistinctSorter();
+      case "AdaptiveSorter":
+        return new AdaptiveSorter(alphabet);
+      case "PrefixKeySorter":
+        return new PrefixKeySorter(alphabet);
+      default:
+        throw new IllegalArgumentException("Unknown sorter " + name);
+    }
+  }
+
+  /**
+   * Sorts a generated list with every sorter enough times for the JIT to
+   * compile the sorting paths before the first request arrives.
+   */
+  private static void warmUp()
+  {
+    char[] letters = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    Alphabet alphabet = new Alphabet(letters);
+    AlphabetComparator comp = new AlphabetComparator(alphabet);
+
+    Random rand = new Random(228);
+    String[] words = new String[256];
+    for (int i = 0; i < words.length; ++i)
+    {
+      char[] word = new char[1 + rand.nextInt(12)];
+      for (int j = 0; j < word.length; ++j)
+      {
+        word[j] = letters[rand.nextInt(letters.length)];
+      }
+      words[i] = new String(word);
+    }
+
+    WordList source = new WordList(words);
+    WordList working = source.clone();
+    String[] names = {"QuickSorter", "MergeSorter", "InsertionSorter", "BinaryInsertionSorter", "ShellSorter",
+                      "DistinctSorter", "AdaptiveSorter", "PrefixKeySorter"};
+    for (String name : names)
+    {
+      Sorter sorter = newSorter(name, alphabet);
+      for (int round = 0; round < WARMUP_ROUNDS; ++round)
+      {
+        working.resetFrom(source);
+        sorter.sort(working, comp);
+      }
+    }
+  }
+
+
+  /**
+   * A loaded alphabet, with the state of its file when it was loaded.
+   */
+  private static class LoadedAlphabet
+  {
+    /**
+     * The alphabet.
+     */
+    final Alphabet alphabet;
+
+    /**
+     * The last modification time of the file, in milliseconds.
+     */
+    final long modified;
+
+    /**
+     * The size of the file, in bytes.
+     */
+    final long size;
+
+    LoadedAlphabet(Alphabet alphabet, long modified, long size)
+    {
+      this.alphabet = alphabet;
+      this.modified = modified;
+      this.size = size;
+    }
+  }
+}
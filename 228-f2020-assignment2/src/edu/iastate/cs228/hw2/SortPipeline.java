@@ -0,0 +1,471 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Sorts a stream of words, one per line, without holding the whole stream
+ * in memory.
+ *
+ * The calling thread reads the input into chunks and hands them to worker
+ * threads through a bounded queue, blocking when the workers fall behind.
+ * Each worker sorts its chunks with its own {@link Sorter} while reading
+ * continues, and writes each sorted chunk to a temporary run file. Once the
+ * input is exhausted, the runs are merged and streamed to the output. At
+ * most {@link #MERGE_FAN_IN} runs are open at once: if there are more, groups
+ * of them are first merged into longer intermediate runs.
+ *
+ * @author Jack Croghan
+ */
+public class SortPipeline
+{
+  /**
+   * The chunk marking the end of the input.
+   */
+  private static final String[] END = new String[0];
+
+  /**
+   * The maximum number of runs merged at once, keeping the number of open
+   * files well within common per-process limits.
+   */
+  static final int MERGE_FAN_IN = 64;
+
+
+  /**
+   * Creates the sorter used by each worker.
+   */
+  private final Supplier<? extends Sorter> sorters;
+
+  /**
+   * The comparator used to order words. Shared by every worker, so it must
+   * be safe to use from several threads, as {@link AlphabetComparator} is.
+   */
+  private final Comparator<String> comparator;
+
+  /**
+   * The number of words in each chunk.
+   */
+  private final int chunkSize;
+
+  /**
+   * The number of worker threads.
+   */
+  private final int workers;
+
+  /**
+   * The number of read chunks that may wait for a worker.
+   */
+  private final int queueCapacity;
+
+  /**
+   * The directory run files are written to, or {@code null} for the default
+   * temporary directory.
+   */
+  private final File tempDirectory;
+
+
+  /**
+   * Constructs a pipeline.
+   *
+   * @param sorters
+   *   creates the sorter used by each worker
+   * @param comparator
+   *   the comparator used to order words, which must be safe to use from
+   *   several threads
+   * @param chunkSize
+   *   the number of words sorted at a time
+   * @param workers
+   *   the number of threads sorting chunks
+   * @param queueCapacity
+   *   the number of read chunks that may wait for a worker before reading
+   *   blocks
+   * @param tempDirectory
+   *   the directory run files are written to, or {@code null} for the
+   *   default temporary directory
+   * @throws NullPointerException
+   *   if either of {@code sorters} or {@code comparator} are {@code null}
+   * @throws IllegalArgumentException
+   *   if any of {@code chunkSize}, {@code workers} or {@code queueCapacity}
+   *   are not positive
+   */
+  public SortPipeline(Supplier<? extends Sorter> sorters, Comparator<String> comparator,
+                      int chunkSize, int workers, int queueCapacity, File tempDirectory)
+    throws NullPointerException, IllegalArgumentException
+  {
+    if (null == sorters || null == comparator)
+    {
+      throw new NullPointerException();
+    }
+    if (chunkSize <= 0 || workers <= 0 || queueCapacity <= 0)
+    {
+      throw new IllegalArgumentException("Chunk size, workers and queue capacity must be positive");
+    }
+
+    this.sorters = sorters;
+    this.comparator = comparator;
+    this.chunkSize = chunkSize;
+    this.workers = workers;
+    this.queueCapacity = queueCapacity;
+    this.tempDirectory = tempDirectory;
+  }
+
+
+  /**
+   * Sorts a word file, as described by {@link #sort(InputStream, OutputStream)}.
+   *
+   * @param args
+   *   an array expected to contain three to five arguments:
+   *    - the name of a file containing the ordering to use to compare
+   *      characters, either as text or as an {@link Alphabet} snapshot
+   *    - the name of the file of words to sort
+   *    - the name of the file to write the sorted words to
+   *    - optionally, the number of words sorted at a time
+   *    - optionally, the number of threads sorting chunks
+   */
+  public static void main(String[] args) throws IOException
+  {
+    Alphabet alphabet = Alphabet.load(args[0]);
+    int chunkSize = args.length > 3 ? Integer.parseInt(args[3]) : 65536;
+    int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+    SortPipeline pipeline = new SortPipeline(MergeSorter::new, new AlphabetComparator(alphabet),
+                                             chunkSize, workers, 2 * workers, null);
+    try (InputStream in = new FileInputStream(args[1]);
+         OutputStream out = new FileOutputStream(args[2]))
+    {
+      long start = System.nanoTime();
+      pipeline.sort(in, out);
+      System.out.println("Sorted in " + (System.nanoTime() - start) / 1000000.00 + " ms");
+    }
+  }
+
+
+  /**
+   * Reads words from the given stream, one per line in UTF-8, and writes
+   * them to the given stream in sorted order, one per line. Neither stream
+   * is closed.
+   *
+   * @param in
+   *   the stream to read words from
+   * @param out
+   *   the stream to write the sorted words to
+   * @throws NullPointerException
+   *   if either of {@code in} or {@code out} are {@code null}
+   * @throws IOException
+   *   if reading, writing or a run file fails
+   * @throws IllegalArgumentException
+   *   if a word contains a character the comparator does not accept
+   */
+  public void sort(InputStream in, OutputStream out) throws NullPointerException, IOException
+  {
+    BlockingQueue<String[]> chunks = new ArrayBlockingQueue<>(queueCapacity);
+    List<File> runs = new ArrayList<>();
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+    try
+    {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < workers; ++i)
+      {
+        results.add(pool.submit(() -> work(chunks, runs)));
+      }
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      try
+      {
+        String[] chunk = new String[chunkSize];
+        int n = 0;
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+          chunk[n++] = line;
+          if (n == chunkSize)
+          {
+            chunks.put(chunk);
+            chunk = new String[chunkSize];
+            n = 0;
+          }
+        }
+        if (n > 0)
+        {
+          chunks.put(Arrays.copyOf(chunk, n));
+        }
+      }
+      finally
+      {
+        for (int i = 0; i < workers; ++i)
+        {
+          chunks.put(END);
+        }
+      }
+
+      for (Future<?> result : results)
+      {
+        result.get();
+      }
+
+      merge(runs, out);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while sorting", e);
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException)
+      {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof RuntimeException)
+      {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+    finally
+    {
+      // After a failure, workers may still be sorting or writing a run, so
+      // they are stopped and waited for before their runs are deleted.
+      pool.shutdownNow();
+      awaitTermination(pool);
+
+      List<File> created;
+      synchronized (runs)
+      {
+        created = new ArrayList<>(runs);
+      }
+      for (File run : created)
+      {
+        //noinspection ResultOfMethodCallIgnored
+        run.delete();
+      }
+    }
+  }
+
+  /**
+   * Waits for every task of the given pool to finish. An interrupt does not
+   * cut the wait short, but the interrupted status of the calling thread is
+   * restored once the wait is over.
+   */
+  private static void awaitTermination(ExecutorService pool)
+  {
+    boolean interrupted = false;
+    while (!pool.isTerminated())
+    {
+      try
+      {
+        pool.awaitTermination(1, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e)
+      {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Sorts chunks from the given queue until the end of the input, adding the
+   * run file holding each sorted chunk to {@code runs}. After a failure, the
+   * remaining chunks are drained without being sorted, so that reading never
+   * blocks on a full queue, and the failure is then rethrown.
+   */
+  private Void work(BlockingQueue<String[]> chunks, List<File> runs) throws InterruptedException
+  {
+    Sorter sorter = null;
+    RuntimeException failure = null;
+    try
+    {
+      sorter = sorters.get();
+    }
+    catch (RuntimeException e)
+    {
+      failure = e;
+    }
+
+    String[] chunk;
+    while ((chunk = chunks.take()) != END)
+    {
+      if (null != failure)
+      {
+        continue;
+      }
+
+      try
+      {
+        WordList words = new WordList(chunk);
+        sorter.sort(words, comparator);
+
+        File run = File.createTempFile("run", ".txt", tempDirectory);
+        synchronized (runs)
+        {
+          runs.add(run);
+        }
+        try (Writer writer = new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(run), StandardCharsets.UTF_8)))
+        {
+          for (String word : words.getArray())
+          {
+            writer.write(word);
+            writer.write('\n');
+          }
+        }
+      }
+      catch (IOException e)
+      {
+        failure = new UncheckedIOException(e);
+      }
+      catch (RuntimeException e)
+      {
+        failure = e;
+      }
+    }
+
+    if (null != failure)
+    {
+      throw failure;
+    }
+    return null;
+  }
+
+  /**
+   * Merges the given sorted run files into the given stream, in passes of at
+   * most {@link #MERGE_FAN_IN} runs. The intermediate run files created are
+   * added to {@code runs}, so that they are deleted along with the others.
+   */
+  private void merge(List<File> runs, OutputStream out) throws IOException
+  {
+    List<File> remaining = new ArrayList<>(runs);
+    while (remaining.size() > MERGE_FAN_IN)
+    {
+      List<File> merged = new ArrayList<>();
+      for (int i = 0; i < remaining.size(); i += MERGE_FAN_IN)
+      {
+        List<File> group = remaining.subList(i, Math.min(i + MERGE_FAN_IN, remaining.size()));
+        if (1 == group.size())
+        {
+          merged.add(group.get(0));
+          continue;
+        }
+
+        File run = File.createTempFile("run", ".txt", tempDirectory);
+        runs.add(run);
+        merged.add(run);
+        try (OutputStream runOut = new FileOutputStream(run))
+        {
+          mergeRuns(group, runOut);
+        }
+        for (File done : group)
+        {
+          //noinspection ResultOfMethodCallIgnored
+          done.delete();
+        }
+      }
+      remaining = merged;
+    }
+
+    mergeRuns(remaining, out);
+  }
+
+  /**
+   * Merges the given sorted run files, all opened at once, into the given
+   * stream.
+   */
+  private void mergeRuns(List<File> runs, OutputStream out) throws IOException
+  {
+    List<BufferedReader> readers = new ArrayList<>();
+    PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> {
+      int c = comparator.compare(a.word, b.word);
+      return 0 != c ? c : Integer.compare(a.run, b.run);
+    });
+
+    try
+    {
+      for (File run : runs)
+      {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(run), StandardCharsets.UTF_8));
+        readers.add(reader);
+
+        String word = reader.readLine();
+        if (null != word)
+        {
+          heads.add(new Cursor(word, readers.size() - 1));
+        }
+      }
+
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      while (!heads.isEmpty())
+      {
+        Cursor head = heads.poll();
+        writer.write(head.word);
+        writer.write('\n');
+
+        head.word = readers.get(head.run).readLine();
+        if (null != head.word)
+        {
+          heads.add(head);
+        }
+      }
+      writer.flush();
+    }
+    finally
+    {
+      for (BufferedReader reader : readers)
+      {
+        reader.close();
+      }
+    }
+  }
+
+
+  /**
+   * The next unmerged word of a run.
+   */
+  private static class Cursor
+  {
+    /**
+     * The word, or {@code null} if the run is exhausted.
+     */
+    String word;
+
+    /**
+     * The index of the run.
+     */
+    final int run;
+
+    Cursor(String word, int run)
+    {
+      this.word = word;
+      this.run = run;
+    }
+  }
+}
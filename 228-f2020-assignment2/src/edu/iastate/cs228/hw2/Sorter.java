@@ -22,7 +22,7 @@ public abstract class Sorter
    * Only modified in {@link #sortWithStatistics(WordList, Comparator, int)
    * sortWithStatistics()}, and retrieved from {@link #getTotalSortingTime()}.
    */
-  private long totalSortingTime;
+  private double totalSortingTime;
 
   /**
    * The total number of comparisons made by this sorter.
@@ -57,6 +57,118 @@ public abstract class Sorter
    */
   public abstract void sort(WordList toSort, Comparator<String> comp) throws NullPointerException;
   
+  /**
+   * Returns the permutation that sorts the given {@code WordList} using the
+   * given {@code Comparator}: element {@code i} of the permutation is the
+   * index in the given list of the word that belongs at index {@code i} once
+   * sorted.
+   * The contents of the given list <b>are not</b> modified.
+   *
+   * The default implementation stably merge sorts the indices of the words
+   * with the given comparator, without copying the list, whatever the
+   * algorithm of {@link #sort(WordList, Comparator) sort()}, so equal words
+   * keep their relative order; sorters with a faster way to order indices
+   * may override it. The permutation produced by a particular sorter's
+   * {@code sort()} is found by sorting a copy of the list instead, as
+   * {@link CachingSorter} does.
+   *
+   * @param toSort
+   *   the list to find the sorting permutation of
+   * @param comp
+   *   the comparator to use to compare elements of the list
+   * @return
+   *   the permutation sorting {@code toSort}
+   * @throws NullPointerException
+   *   if either of {@code toSort} or {@code comp} are {@code null}
+   */
+  public int[] sortedPermutation(WordList toSort, Comparator<String> comp) throws NullPointerException
+  {
+    if (null == comp)
+    {
+      throw new NullPointerException();
+    }
+
+    String[] words = toSort.getArray();
+    int[] permutation = new int[words.length];
+    for (int i = 0; i < permutation.length; ++i)
+    {
+      permutation[i] = i;
+    }
+
+    mergeSortIndices(permutation, (a, b) -> comp.compare(words[a], words[b]));
+    return permutation;
+  }
+
+  /**
+   * Stably sorts the given array of indices, ordering them by the elements
+   * they identify as compared by the given comparator.
+   *
+   * @param indices
+   *   the indices to sort
+   * @param comp
+   *   the comparator to use to compare the elements identified by two
+   *   indices
+   */
+  static void mergeSortIndices(int[] indices, IndexComparator comp)
+  {
+    mergeSortIndices(indices, indices.clone(), 0, indices.length, comp);
+  }
+
+  /**
+   * Stably sorts the given range of {@code indices}. The scratch array must
+   * hold the same indices as the array being sorted over the range.
+   */
+  private static void mergeSortIndices(int[] indices, int[] scratch, int start, int end, IndexComparator comp)
+  {
+    if (end - start < 2)
+    {
+      return;
+    }
+
+    // Each level sorts the halves of the scratch array into the primary
+    // array, alternating roles on the way down, so merged halves never need
+    // copying back.
+    int mid = (start + end) >>> 1;
+    mergeSortIndices(scratch, indices, start, mid, comp);
+    mergeSortIndices(scratch, indices, mid, end, comp);
+
+    int left = start;
+    int right = mid;
+    for (int i = start; i < end; ++i)
+    {
+      if (right >= end || left < mid && comp.compare(scratch[left], scratch[right]) <= 0)
+      {
+        indices[i] = scratch[left++];
+      }
+      else
+      {
+        indices[i] = scratch[right++];
+      }
+    }
+  }
+
+  /**
+   * Returns the comparator wrapped by the given one if it is the counting
+   * comparator passed to {@code sort()} by
+   * {@link #sortWithStatistics(WordList, Comparator, int)
+   * sortWithStatistics()}, or the given comparator otherwise. A sorter uses
+   * it for comparisons that inspect the list rather than sort it, so that
+   * they are not counted.
+   *
+   * @param comp
+   *   the comparator given to the sorter
+   * @return
+   *   the comparator to make uncounted comparisons with
+   */
+  static Comparator<String> uncounted(Comparator<String> comp)
+  {
+    if (comp instanceof CountingComparator)
+    {
+      return ((CountingComparator) comp).wrapped;
+    }
+    return comp;
+  }
+
   /**
    * Repeatedly {@linkplain #sort(WordList, Comparator) sorts} copies of the
    * given {@code WordList} using the given {@code Comparator}, until the total
@@ -68,7 +180,8 @@ public abstract class Sorter
    * {@code getClass().getSimpleName()}) with a <t>.txt</t> extension.
    * 
    * Timing is performed such that only calls to {@code sort()} are timed, so
-   * that cloning and I/O time is not counted.
+   * that copying and I/O time is not counted. A single working copy of the
+   * list is allocated, and refilled from {@code toSort} before each sort.
    * 
    * @param toSort
    *   the list to sort copies of
@@ -89,10 +202,11 @@ public abstract class Sorter
     totalSortingTime = 0;
 
     CountingComparator comparator = new CountingComparator(comp);
+    WordList tempList = toSort.clone();
 
     while(totalWordsSorted < totalToSort)
     {
-      WordList tempList = toSort.clone();
+      tempList.resetFrom(toSort);
 
       long startTime = java.lang.System.nanoTime();
       //noinspection unchecked
@@ -162,6 +276,26 @@ public abstract class Sorter
 
 
 
+  /**
+   * A comparison of two elements identified by their indices, used to sort
+   * indices without moving the elements themselves.
+   */
+  interface IndexComparator
+  {
+    /**
+     * Compares the elements at the given indices.
+     *
+     * @param a
+     *   the index of the first element
+     * @param b
+     *   the index of the second element
+     * @return
+     *   a negative value, zero, or a positive value if the first element is
+     *   less than, equal to, or greater than the second
+     */
+    int compare(int a, int b);
+  }
+
   /**
    * A wrapper {@code Comparator} that counts how many comparisons have been
    * performed.
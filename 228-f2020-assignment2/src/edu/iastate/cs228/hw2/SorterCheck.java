@@ -0,0 +1,875 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+
+/**
+ * A randomized differential checker for the sorters and
+ * {@link AlphabetComparator}.
+ *
+ * Each round generates an alphabet and a word list from a seed, sorts the
+ * list with {@link Arrays#sort(Object[], Comparator)} and a reference
+ * comparator that shares no code with {@link Alphabet}, and checks that
+ * every sorter produces exactly the same words. Sorters that promise
+ * stability must also keep equal words, which are distinct objects, in their
+ * original order. The comparator itself is checked against the reference on
+ * pairs of words, including words holding characters outside the alphabet.
+ *
+ * Every failure is reported with the seed of its round, so it can be
+ * reproduced by running a single round with that seed.
+ *
+ * @author Jack Croghan
+ */
+public class SorterCheck
+{
+  /**
+   * The largest list generated by an ordinary round.
+   */
+  private static final int MAX_ROUND_SIZE = 3000;
+
+  /**
+   * The largest list sorted by sorters taking quadratic time on some shapes.
+   */
+  private static final int QUADRATIC_LIMIT = 5000;
+
+  /**
+   * The number of word pairs compared in each round.
+   */
+  private static final int PAIRS_PER_ROUND = 500;
+
+  /**
+   * The number of milliseconds between soak test reports.
+   */
+  private static final long REPORT_INTERVAL = 10000;
+
+  /**
+   * The shapes of generated word lists.
+   */
+  private static final String[] SHAPES = {"empty", "single", "duplicates", "prefixes", "random", "sorted",
+                                          "reversed", "nearly", "organpipe", "sawtooth"};
+
+  /**
+   * The kinds of generated alphabets.
+   */
+  private static final String[] ALPHABETS = {"tiny", "lowercase", "scattered", "supplementary", "large"};
+
+
+  /**
+   * The sorters checked, keyed by name.
+   */
+  private final Map<String, Candidate> candidates = new LinkedHashMap<>();
+
+  /**
+   * The number of words sorted by each sorter.
+   */
+  private final Map<String, Long> wordsSorted = new HashMap<>();
+
+  /**
+   * The nanoseconds spent sorting by each sorter.
+   */
+  private final Map<String, Long> sortingTime = new HashMap<>();
+
+  /**
+   * The number of rounds run.
+   */
+  private long rounds;
+
+  /**
+   * The number of pairs of words whose comparisons were checked.
+   */
+  private long comparisons;
+
+  /**
+   * The number of checks that failed.
+   */
+  private long failures;
+
+
+  /**
+   * Constructs a checker over every sorter.
+   */
+  public SorterCheck()
+  {
+    add("QuickSorter", a -> new QuickSorter(), false, QUADRATIC_LIMIT);
+    add("MergeSorter", a -> new MergeSorter(), true, Integer.MAX_VALUE);
+    add("QuickSorter(cutoff)", a -> new QuickSorter(BinaryInsertionSorter.CUTOFF), false, QUADRATIC_LIMIT);
+    add("MergeSorter(cutoff)", a -> new MergeSorter(BinaryInsertionSorter.CUTOFF), true, Integer.MAX_VALUE);
+    add("InsertionSorter", a -> new InsertionSorter(), true, QUADRATIC_LIMIT);
+    add("BinaryInsertionSorter", a -> new BinaryInsertionSorter(), true, QUADRATIC_LIMIT);
+    add("ShellSorter", a -> new ShellSorter(), false, Integer.MAX_VALUE);
+    add("DistinctSorter", a -> new DistinctSorter(), false, Integer.MAX_VALUE);
+    add("AdaptiveSorter", AdaptiveSorter::new, false, Integer.MAX_VALUE);
+    add("PrefixKeySorter", PrefixKeySorter::new, true, Integer.MAX_VALUE);
+    add("CollationKeySorter", a -> new CollationKeySorter(a, new CollationKeyCache(1024)), true, Integer.MAX_VALUE);
+    add("CachingSorter", a -> new CachingSorter(new MergeSorter(), a, new PermutationCache(4)), true,
+        Integer.MAX_VALUE);
+    add("CachingSorter(QuickSorter)", a -> new CachingSorter(new QuickSorter(), a, new PermutationCache(4)), false,
+        QUADRATIC_LIMIT);
+  }
+
+
+  /**
+   * Runs the checker.
+   *
+   * @param args
+   *   an array expected to contain the mode to run, followed by its
+   *   optional arguments:
+   *    - {@code check [rounds] [seed]}: runs the given number of rounds, 200
+   *      by default, the first using the given seed and each following round
+   *      the next seed
+   *    - {@code large [size] [seed]}: sorts lists of every shape with the
+   *      given number of words, two million by default, skipping sorters
+   *      that would take quadratic time
+   *    - {@code ordered [size] [seed]}: sorts an organ-pipe list and
+   *      sawtooth lists with runs of several lengths, each of the given
+   *      number of words, 200 thousand by default, skipping sorters that would
+   *      take quadratic time
+   *    - {@code soak [seconds] [seed]}: runs rounds until the given number of
+   *      seconds, 600 by default, have passed, periodically reporting the
+   *      throughput of each sorter
+   *   The process exits with status 1 if any check failed.
+   */
+  public static void main(String[] args)
+  {
+    String mode = args.length > 0 ? args[0] : "check";
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+    SorterCheck check = new SorterCheck();
+
+    switch (mode)
+    {
+      case "check":
+      {
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        for (int i = 0; i < rounds; ++i)
+        {
+          check.round(seed + i, MAX_ROUND_SIZE);
+        }
+        break;
+      }
+      case "large":
+      {
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        Random rand = new Random(seed);
+        int[] alphabet = generateAlphabet("scattered", rand);
+        for (String shape : SHAPES)
+        {
+          check.checkSorters(alphabet, generateWords(shape, size, alphabet, rand), shape, seed);
+          System.out.println("Checked " + shape + " list of " + size + " words");
+        }
+        break;
+      }
+      case "ordered":
+      {
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        Random rand = new Random(seed);
+        int[] alphabet = generateAlphabet("lowercase", rand);
+        String[] organPipe = generateWords("organpipe", size, alphabet, rand);
+        check.checkSorters(alphabet, organPipe, "organpipe", seed);
+        System.out.println("Checked organpipe list of " + size + " words");
+
+        String[] sorted = organPipe.clone();
+        Arrays.sort(sorted, new ReferenceComparator(alphabet));
+        for (int period : new int[] {2, 3, 4, 7, 8, 64, (int) Math.sqrt(size), size / 8})
+        {
+          String shape = "sawtooth (period " + period + ")";
+          check.checkSorters(alphabet, sawtooth(sorted, period), shape, seed);
+          System.out.println("Checked " + shape + " list of " + size + " words");
+        }
+        break;
+      }
+      case "soak":
+      {
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 600;
+        long start = System.currentTimeMillis();
+        long nextReport = start + REPORT_INTERVAL;
+        for (long i = 0; System.currentTimeMillis() - start < seconds * 1000; ++i)
+        {
+          check.round(seed + i, MAX_ROUND_SIZE);
+          if (System.currentTimeMillis() >= nextReport)
+          {
+            check.report();
+            nextReport += REPORT_INTERVAL;
+          }
+        }
+        break;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown mode " + mode);
+    }
+
+    check.report();
+    if (check.failures > 0)
+    {
+      System.exit(1);
+    }
+  }
+
+
+  /**
+   * Runs a single round: generates an alphabet and a word list from the
+   * given seed, checks every sorter on the list, and checks the comparator
+   * on pairs of words.
+   *
+   * @param seed
+   *   the seed the round is generated from
+   * @param maxSize
+   *   the largest list generated
+   */
+  public void round(long seed, int maxSize)
+  {
+    Random rand = new Random(seed);
+    int[] alphabet = generateAlphabet(ALPHABETS[rand.nextInt(ALPHABETS.length)], rand);
+    String shape = SHAPES[rand.nextInt(SHAPES.length)];
+    String[] words = generateWords(shape, rand.nextInt(maxSize + 1), alphabet, rand);
+
+    checkSorters(alphabet, words, shape, seed);
+    checkComparator(alphabet, words, rand, seed);
+    ++rounds;
+  }
+
+  /**
+   * Checks that every sorter sorts the given words exactly as the reference
+   * does, and that its sorting permutation agrees.
+   *
+   * @param ordering
+   *   the code points of the alphabet, in order
+   * @param words
+   *   the words to sort, each a distinct object
+   * @param shape
+   *   the shape of the list, used to describe failures
+   * @param seed
+   *   the seed the list was generated from, used to describe failures
+   */
+  public void checkSorters(int[] ordering, String[] words, String shape, long seed)
+  {
+    Alphabet alphabet = new Alphabet(ordering);
+    AlphabetComparator comp = new AlphabetComparator(alphabet);
+
+    String[] expected = words.clone();
+    Arrays.sort(expected, new ReferenceComparator(ordering));
+
+    for (Candidate candidate : candidates.values())
+    {
+      if (words.length > candidate.maxSize)
+      {
+        continue;
+      }
+
+      String context = candidate.name + " on a " + shape + " list of " + words.length + " words (seed " + seed + ")";
+      try
+      {
+        Sorter sorter = candidate.factory.apply(alphabet);
+
+        // Sorting twice with the same sorter also exercises any state it
+        // keeps between sorts, such as caches.
+        for (int pass = 0; pass < 2; ++pass)
+        {
+          WordList list = new WordList(words);
+          long start = System.nanoTime();
+          sorter.sort(list, comp);
+          sortingTime.merge(candidate.name, System.nanoTime() - start, Long::sum);
+          wordsSorted.merge(candidate.name, (long) words.length, Long::sum);
+
+          compare(list.getArray(), expected, candidate.stable, context);
+        }
+
+        WordList list = new WordList(words);
+        int[] permutation = sorter.sortedPermutation(list, comp);
+        if (!Arrays.equals(list.getArray(), words))
+        {
+          fail(context + ": sortedPermutation() modified the list");
+        }
+        checkPermutation(permutation, words, expected, candidate.stable, context);
+
+        if (sorter instanceof DistinctSorter)
+        {
+          checkDistinct(((DistinctSorter) sorter).sortDistinct(new WordList(words), comp), expected, context);
+        }
+      }
+      catch (RuntimeException | StackOverflowError e)
+      {
+        fail(context + ": threw " + e);
+      }
+    }
+  }
+
+  /**
+   * Checks that {@link AlphabetComparator} agrees with the reference on
+   * pairs of the given words, on pairs sharing long prefixes, and on pairs
+   * holding characters outside the alphabet.
+   *
+   * @param ordering
+   *   the code points of the alphabet, in order
+   * @param words
+   *   words drawn from the alphabet
+   * @param rand
+   *   the source of randomness
+   * @param seed
+   *   the seed of the round, used to describe failures
+   */
+  public void checkComparator(int[] ordering, String[] words, Random rand, long seed)
+  {
+    AlphabetComparator comp = new AlphabetComparator(new Alphabet(ordering));
+    ReferenceComparator reference = new ReferenceComparator(ordering);
+    int outside = outsideCodePoint(ordering, rand);
+
+    for (int i = 0; i < PAIRS_PER_ROUND; ++i)
+    {
+      String a;
+      String b;
+      switch (rand.nextInt(4))
+      {
+        case 0:
+          a = words.length > 0 ? words[rand.nextInt(words.length)] : "";
+          b = words.length > 0 ? words[rand.nextInt(words.length)] : "";
+          break;
+        case 1:
+          // Long words differing late, to reach the bulk comparison.
+          a = randomWord(rand, ordering, 0, 3 * AlphabetComparator.BULK_THRESHOLD);
+          b = a + randomWord(rand, ordering, 0, 3);
+          a = a + randomWord(rand, ordering, 0, 3);
+          break;
+        case 2:
+          a = randomWord(rand, ordering, 0, 8);
+          b = new String(a);
+          break;
+        default:
+          a = randomWord(rand, ordering, 0, 2 * AlphabetComparator.BULK_THRESHOLD);
+          b = insert(a, outside, rand);
+          if (rand.nextBoolean())
+          {
+            String temp = a;
+            a = b;
+            b = temp;
+          }
+      }
+
+      ++comparisons;
+      String actual = outcome(comp, a, b);
+      String wanted = outcome(reference, a, b);
+      if (!actual.equals(wanted))
+      {
+        fail("AlphabetComparator on " + describe(a) + " and " + describe(b) + " gave " + actual + " instead of "
+             + wanted + " (seed " + seed + ")");
+      }
+    }
+  }
+
+  /**
+   * Prints the number of rounds and comparisons checked, the number of
+   * failures, and the throughput of each sorter.
+   */
+  public void report()
+  {
+    System.out.println("Rounds: " + rounds + ", comparator pairs: " + comparisons + ", failures: " + failures);
+    for (String name : candidates.keySet())
+    {
+      long words = wordsSorted.getOrDefault(name, 0L);
+      long nanos = sortingTime.getOrDefault(name, 0L);
+      double perSecond = 0 == nanos ? 0 : words / (nanos / 1000000000.00);
+      System.out.println(String.format("  %-26s %,14d words %,16.0f words/s", name, words, perSecond));
+    }
+    System.out.println(" ");
+  }
+
+  /**
+   * Returns the number of failed checks.
+   *
+   * @return
+   *   the number of failures
+   */
+  public long getFailures()
+  {
+    return failures;
+  }
+
+
+  /**
+   * Registers a sorter to check.
+   */
+  private void add(String name, Function<Alphabet, Sorter> factory, boolean stable, int maxSize)
+  {
+    candidates.put(name, new Candidate(name, factory, stable, maxSize));
+  }
+
+  /**
+   * Checks that the given sorted words match the expected words, and are the
+   * same objects in the same order if the sorter is stable.
+   */
+  private void compare(String[] actual, String[] expected, boolean stable, String context)
+  {
+    for (int i = 0; i < expected.length; ++i)
+    {
+      if (!expected[i].equals(actual[i]))
+      {
+        fail(context + ": index " + i + " holds " + describe(actual[i]) + " instead of " + describe(expected[i]));
+        return;
+      }
+      if (stable && expected[i] != actual[i])
+      {
+        fail(context + ": equal words " + describe(actual[i]) + " out of their original order at index " + i);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Checks that the given permutation is a permutation of the indices of
+   * {@code words}, and arranges them as expected.
+   */
+  private void checkPermutation(int[] permutation, String[] words, String[] expected, boolean stable,
+                                String context)
+  {
+    if (permutation.length != words.length)
+    {
+      fail(context + ": sortedPermutation() returned " + permutation.length + " indices");
+      return;
+    }
+
+    boolean[] seen = new boolean[words.length];
+    String[] arranged = new String[words.length];
+    for (int i = 0; i < permutation.length; ++i)
+    {
+      int idx = permutation[i];
+      if (idx < 0 || idx >= words.length || seen[idx])
+      {
+        fail(context + ": sortedPermutation() is not a permutation at index " + i);
+        return;
+      }
+      seen[idx] = true;
+      arranged[i] = words[idx];
+    }
+    compare(arranged, expected, stable, context + " via sortedPermutation()");
+  }
+
+  /**
+   * Checks that the given distinct words and counts match the runs of equal
+   * words in the expected list.
+   */
+  private void checkDistinct(DistinctSorter.WordCount[] distinct, String[] expected, String context)
+  {
+    List<DistinctSorter.WordCount> wanted = new ArrayList<>();
+    for (int i = 0; i < expected.length; )
+    {
+      int j = i + 1;
+      while (j < expected.length && expected[j].equals(expected[i]))
+      {
+        ++j;
+      }
+      wanted.add(new DistinctSorter.WordCount(expected[i], j - i));
+      i = j;
+    }
+
+    if (!wanted.equals(Arrays.asList(distinct)))
+    {
+      fail(context + ": sortDistinct() returned " + distinct.length + " words instead of " + wanted.size()
+           + ", or wrong counts");
+    }
+  }
+
+  /**
+   * Records and prints a failed check.
+   */
+  private void fail(String message)
+  {
+    ++failures;
+    System.out.println("FAILED: " + message);
+  }
+
+
+  /**
+   * Generates the code points of an alphabet of the given kind, in a random
+   * order:
+   *  - {@code tiny}: up to two characters, possibly none
+   *  - {@code lowercase}: the letters {@code a} to {@code z}
+   *  - {@code scattered}: up to a thousand characters scattered over the
+   *    Basic Multilingual Plane
+   *  - {@code supplementary}: a mix of Basic Multilingual Plane and
+   *    supplementary characters
+   *  - {@code large}: tens of thousands of characters over every plane
+   * Surrogates are never included, as they cannot appear alone in text.
+   */
+  static int[] generateAlphabet(String kind, Random rand)
+  {
+    int size;
+    double supplementaryFraction;
+    switch (kind)
+    {
+      case "tiny":
+        size = rand.nextInt(3);
+        supplementaryFraction = 0.25;
+        break;
+      case "lowercase":
+      {
+        int[] letters = new int[26];
+        for (int i = 0; i < letters.length; ++i)
+        {
+          letters[i] = 'a' + i;
+        }
+        shuffle(letters, rand);
+        return letters;
+      }
+      case "scattered":
+        size = 1 + rand.nextInt(1000);
+        supplementaryFraction = 0;
+        break;
+      case "supplementary":
+        size = 1 + rand.nextInt(2000);
+        supplementaryFraction = 0.5;
+        break;
+      case "large":
+        size = 20000 + rand.nextInt(40000);
+        supplementaryFraction = 0.3;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown alphabet " + kind);
+    }
+
+    Set<Integer> chosen = new LinkedHashSet<>();
+    while (chosen.size() < size)
+    {
+      int c;
+      if (rand.nextDouble() < supplementaryFraction)
+      {
+        c = Character.MIN_SUPPLEMENTARY_CODE_POINT
+            + rand.nextInt(Character.MAX_CODE_POINT - Character.MIN_SUPPLEMENTARY_CODE_POINT + 1);
+      }
+      else
+      {
+        c = rand.nextInt(Character.MAX_VALUE + 1);
+      }
+      if (!Character.isSurrogate((char) c) || !Character.isBmpCodePoint(c))
+      {
+        chosen.add(c);
+      }
+    }
+
+    int[] ordering = new int[size];
+    int i = 0;
+    for (int c : chosen)
+    {
+      ordering[i++] = c;
+    }
+    return ordering;
+  }
+
+  /**
+   * Generates a list of the given shape and size over the given alphabet.
+   * Every word is a distinct object, so that stability can be checked by
+   * identity. The shapes are:
+   *  - {@code empty}: no words, whatever the size
+   *  - {@code single}: a single word, whatever the size
+   *  - {@code duplicates}: a handful of distinct words, each repeated
+   *  - {@code prefixes}: words sharing a long prefix, some of them prefixes
+   *    of others
+   *  - {@code random}: short random words
+   *  - {@code sorted}, {@code reversed}: random words in sorted or reverse
+   *    sorted order
+   *  - {@code nearly}: sorted words with a few swapped
+   *  - {@code organpipe}: words of at least four characters, every other one
+   *    of them in sorted order followed by the rest in reverse sorted order
+   *  - {@code sawtooth}: words of at least four characters, in consecutive
+   *    ascending runs of a random length, each spanning the whole range of
+   *    the words
+   */
+  static String[] generateWords(String shape, int size, int[] ordering, Random rand)
+  {
+    switch (shape)
+    {
+      case "empty":
+        return new String[0];
+      case "single":
+        return new String[] {randomWord(rand, ordering, 0, 12)};
+      case "duplicates":
+      {
+        String[] pool = new String[1 + rand.nextInt(5)];
+        for (int i = 0; i < pool.length; ++i)
+        {
+          pool[i] = randomWord(rand, ordering, 0, 6);
+        }
+        String[] words = new String[size];
+        for (int i = 0; i < size; ++i)
+        {
+          words[i] = new String(pool[rand.nextInt(pool.length)]);
+        }
+        return words;
+      }
+      case "prefixes":
+      {
+        String prefix = randomWord(rand, ordering, 0, 3 * AlphabetComparator.BULK_THRESHOLD);
+        int[] codePoints = prefix.codePoints().toArray();
+        String[] words = new String[size];
+        for (int i = 0; i < size; ++i)
+        {
+          int kept = codePoints.length - rand.nextInt(Math.min(4, codePoints.length + 1));
+          words[i] = new String(codePoints, 0, kept) + randomWord(rand, ordering, 0, 3);
+        }
+        return words;
+      }
+      default:
+    }
+
+    // Ordered shapes use longer words, so that duplicates do not hide their
+    // order.
+    int minLength = "organpipe".equals(shape) || "sawtooth".equals(shape) ? 4 : 0;
+    String[] words = new String[size];
+    for (int i = 0; i < size; ++i)
+    {
+      words[i] = randomWord(rand, ordering, minLength, 12);
+    }
+    if ("random".equals(shape))
+    {
+      return words;
+    }
+
+    Arrays.sort(words, new ReferenceComparator(ordering));
+    switch (shape)
+    {
+      case "sorted":
+        break;
+      case "reversed":
+        for (int i = 0, j = size - 1; i < j; ++i, --j)
+        {
+          swap(words, i, j);
+        }
+        break;
+      case "nearly":
+        for (int i = 0; i < size / 100 + 1 && size > 1; ++i)
+        {
+          swap(words, rand.nextInt(size), rand.nextInt(size));
+        }
+        break;
+      case "organpipe":
+      {
+        String[] sorted = words.clone();
+        int half = (size + 1) / 2;
+        for (int i = 0; i < half; ++i)
+        {
+          words[i] = sorted[2 * i];
+        }
+        for (int i = half; i < size; ++i)
+        {
+          words[i] = sorted[2 * (size - 1 - i) + 1];
+        }
+        break;
+      }
+      case "sawtooth":
+        return sawtooth(words, 2 + rand.nextInt((int) Math.sqrt(size) + 1));
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+    return words;
+  }
+
+  /**
+   * Returns the given sorted words rearranged into consecutive ascending runs
+   * of about the given length, each spanning the whole range of the words:
+   * the word of each rank goes to the run numbered by the rank modulo the
+   * number of runs.
+   */
+  static String[] sawtooth(String[] sorted, int period)
+  {
+    int runs = Math.max(1, (sorted.length + period - 1) / period);
+    String[] words = new String[sorted.length];
+    int next = 0;
+    for (int r = 0; r < runs; ++r)
+    {
+      for (int rank = r; rank < sorted.length; rank += runs)
+      {
+        words[next++] = sorted[rank];
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Returns a new word of random characters of the given alphabet, with a
+   * length in code points between the given bounds, inclusive. Returns an
+   * empty word if the alphabet is empty.
+   */
+  static String randomWord(Random rand, int[] ordering, int minLength, int maxLength)
+  {
+    if (0 == ordering.length)
+    {
+      return new String();
+    }
+
+    int length = minLength + rand.nextInt(maxLength - minLength + 1);
+    StringBuilder word = new StringBuilder(length);
+    for (int i = 0; i < length; ++i)
+    {
+      word.appendCodePoint(ordering[rand.nextInt(ordering.length)]);
+    }
+    return word.toString();
+  }
+
+  /**
+   * Returns a code point, other than a surrogate, not in the given alphabet.
+   */
+  private static int outsideCodePoint(int[] ordering, Random rand)
+  {
+    Set<Integer> present = new HashSet<>();
+    for (int c : ordering)
+    {
+      present.add(c);
+    }
+
+    while (true)
+    {
+      int c = rand.nextBoolean() ? rand.nextInt(Character.MAX_VALUE + 1)
+                                 : Character.MIN_SUPPLEMENTARY_CODE_POINT + rand.nextInt(0x100000);
+      if (!present.contains(c) && !(Character.isBmpCodePoint(c) && Character.isSurrogate((char) c)))
+      {
+        return c;
+      }
+    }
+  }
+
+  /**
+   * Returns the given word with the given code point inserted at a random
+   * code point boundary.
+   */
+  private static String insert(String word, int codePoint, Random rand)
+  {
+    int at = word.offsetByCodePoints(0, rand.nextInt(word.codePointCount(0, word.length()) + 1));
+    return new StringBuilder(word).insert(at, Character.toChars(codePoint)).toString();
+  }
+
+  /**
+   * Returns the sign of comparing the given words, or the name of the
+   * exception thrown.
+   */
+  private static String outcome(Comparator<String> comp, String a, String b)
+  {
+    try
+    {
+      return Integer.toString(Integer.signum(comp.compare(a, b)));
+    }
+    catch (RuntimeException e)
+    {
+      return e.getClass().getSimpleName();
+    }
+  }
+
+  /**
+   * Returns the code points of the given word, for failure messages.
+   */
+  private static String describe(String word)
+  {
+    StringBuilder description = new StringBuilder("[");
+    word.codePoints().forEach(c -> description.append(description.length() > 1 ? " " : "")
+                                              .append(String.format("U+%04X", c)));
+    return description.append(']').toString();
+  }
+
+  private static void shuffle(int[] array, Random rand)
+  {
+    for (int i = array.length - 1; i > 0; --i)
+    {
+      int j = rand.nextInt(i + 1);
+      int temp = array[i];
+      array[i] = array[j];
+      array[j] = temp;
+    }
+  }
+
+  private static void swap(String[] array, int i, int j)
+  {
+    String temp = array[i];
+    array[i] = array[j];
+    array[j] = temp;
+  }
+
+
+  /**
+   * A sorter to check, with whether it promises stability and the largest
+   * list it is given.
+   */
+  private static class Candidate
+  {
+    /**
+     * The name of the sorter.
+     */
+    final String name;
+
+    /**
+     * Creates the sorter for a given alphabet.
+     */
+    final Function<Alphabet, Sorter> factory;
+
+    /**
+     * Whether the sorter promises to keep equal words in order.
+     */
+    final boolean stable;
+
+    /**
+     * The largest number of words the sorter is given.
+     */
+    final int maxSize;
+
+    Candidate(String name, Function<Alphabet, Sorter> factory, boolean stable, int maxSize)
+    {
+      this.name = name;
+      this.factory = factory;
+      this.stable = stable;
+      this.maxSize = maxSize;
+    }
+  }
+
+  /**
+   * The comparator the others are checked against: it looks code points up
+   * in a hash map rather than an {@link Alphabet}, checks every character of
+   * both words before comparing, and compares one code point at a time.
+   */
+  private static class ReferenceComparator implements Comparator<String>
+  {
+    /**
+     * The position of each code point in the ordering.
+     */
+    private final Map<Integer, Integer> positions = new HashMap<>();
+
+    ReferenceComparator(int[] ordering)
+    {
+      for (int i = 0; i < ordering.length; ++i)
+      {
+        positions.put(ordering[i], i);
+      }
+    }
+
+    @Override
+    public int compare(String a, String b)
+    {
+      int[] x = toPositions(a);
+      int[] y = toPositions(b);
+      for (int i = 0; i < x.length && i < y.length; ++i)
+      {
+        if (x[i] != y[i])
+        {
+          return Integer.compare(x[i], y[i]);
+        }
+      }
+      return Integer.compare(x.length, y.length);
+    }
+
+    private int[] toPositions(String word)
+    {
+      return word.codePoints().map(c -> {
+        Integer pos = positions.get(c);
+        if (null == pos)
+        {
+          throw new IllegalArgumentException();
+        }
+        return pos;
+      }).toArray();
+    }
+  }
+}
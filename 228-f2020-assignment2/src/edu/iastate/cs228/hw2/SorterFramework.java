@@ -19,11 +19,13 @@ SorterFramework
    * sorter statistics output.
    * 
    * @param args
-   *   an array expected to contain two arguments:
+   *   an array expected to contain two or three arguments:
    *    - the name of a file containing the ordering to use to compare
-   *      characters
+   *      characters, either as text or as an {@link Alphabet} snapshot
    *    - the name of a file containing words containing only characters in the
-   *      other file
+   *      other file, either as text or as a {@link WordListFile}
+   *    - optionally, the total amount of words to be sorted by each sorter;
+   *      one million by default
    */
   public static void main(String[] args) throws FileNotFoundException
   {
@@ -34,12 +36,22 @@ SorterFramework
     AlphabetComparator comparator;
     WordList words;
 
-    alphabet = new Alphabet(alphabetList);
-    words = new WordList(wordList);
+    alphabet = Alphabet.load(alphabetList);
+    if(WordListFile.isWordListFile(wordList)){
+      words = WordListFile.open(wordList).toWordList();
+    }
+    else{
+      words = new WordList(wordList);
+    }
     comparator = new AlphabetComparator(alphabet);
-    Sorter[] sorters = {new QuickSorter(), new MergeSorter(), new InsertionSorter()};
-
-    SorterFramework toRun = new SorterFramework(sorters, comparator, words, 1000000);
+    Sorter[] sorters = {new QuickSorter(), new MergeSorter(), new InsertionSorter(),
+                        new BinaryInsertionSorter(), new ShellSorter(),
+                        new DistinctSorter(), new AdaptiveSorter(alphabet), new PrefixKeySorter(alphabet),
+                        new CollationKeySorter(alphabet, new CollationKeyCache(Math.max(1, words.length()))),
+                        new CachingSorter(new QuickSorter(), alphabet, new PermutationCache(16))};
+
+    int totalToSort = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+    SorterFramework toRun = new SorterFramework(sorters, comparator, words, totalToSort);
     toRun.run();
   }
 
@@ -107,16 +119,21 @@ SorterFramework
    *  - the average time to sort the word list
    *  - the number of elements sorted per second
    *  - the total number of comparisons performed
+   *  - for an {@link AdaptiveSorter}, the profile of the list and the sorters
+   *    it chose
+   *  - for a {@link CollationKeySorter}, the hit rate of its key cache
+   *  - for a {@link CachingSorter}, the time spent on cache hits and on
+   *    actual sorts
    */
   public
   void
   run()
   {
-    for(int i = 0; i < 3; ++i)
+    for(int i = 0; i < sorters.length; ++i)
     {
       sorters[i].sortWithStatistics(words, comparator, totalToSort);
 
-      int totalRuns = totalToSort / words.length();
+      int totalRuns = sorters[i].getTotalWordsSorted() / words.length();
       double averageTime = sorters[i].getTotalSortingTime() / totalRuns;
       double compPerSec = sorters[i].getTotalComparisons() / (sorters[i].getTotalSortingTime() / 1000.00);
 
@@ -127,6 +144,25 @@ SorterFramework
       System.out.println("Average Time Per List: " + averageTime + " ms");
       System.out.println("Comparisons per Second: " + compPerSec);
       System.out.println("Total Number of Comparisons: " + sorters[i].getTotalComparisons());
+      if(sorters[i] instanceof AdaptiveSorter)
+      {
+        AdaptiveSorter adaptive = (AdaptiveSorter) sorters[i];
+        System.out.println("Profile: " + adaptive.getLastProfile());
+        System.out.println("Sorters Chosen: " + adaptive.getDecisions());
+      }
+      if(sorters[i] instanceof CollationKeySorter)
+      {
+        CollationKeyCache cache = ((CollationKeySorter) sorters[i]).getCache();
+        System.out.println("Key Cache Hit Rate: " + cache.getHitRate()
+                           + " (" + cache.getHits() + " hits, " + cache.getMisses() + " misses, "
+                           + cache.getEvictions() + " evictions)");
+      }
+      if(sorters[i] instanceof CachingSorter)
+      {
+        CachingSorter caching = (CachingSorter) sorters[i];
+        System.out.println("Cache Hits: " + caching.getCacheHits() + " in " + caching.getCacheHitTime() + " ms");
+        System.out.println("Actual Sorts: " + caching.getActualSorts() + " in " + caching.getActualSortTime() + " ms");
+      }
       System.out.println(" ");
     }
   }
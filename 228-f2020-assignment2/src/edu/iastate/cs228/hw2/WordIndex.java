@@ -0,0 +1,397 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * A read-only index over a sorted {@link WordList}, answering prefix and
+ * range queries in {@link Alphabet} order.
+ *
+ * Words are front-coded in blocks of {@link #BLOCK_SIZE}: the first word of
+ * each block is kept whole in a sparse top-level index, and every other word
+ * is stored as the length of the prefix it shares with the word before it,
+ * followed by the rest of its characters. Queries binary search the
+ * top-level index, then decode a single block.
+ *
+ * @author Jack Croghan
+ */
+public class WordIndex
+{
+  /**
+   * The number of words in each front-coded block.
+   */
+  static final int BLOCK_SIZE = 16;
+
+
+  /**
+   * The comparator the words are sorted by.
+   */
+  private final AlphabetComparator comparator;
+
+  /**
+   * The number of words in the index.
+   */
+  private final int length;
+
+  /**
+   * The first word of each block.
+   */
+  private final String[] heads;
+
+  /**
+   * The front-coded words following the head of each block. Each word is
+   * the length of its shared prefix and the length of its suffix, written as
+   * by {@link #writeLength(char[], int, int)}, followed by the suffix.
+   */
+  private final char[] data;
+
+  /**
+   * The index in {@link #data} at which each block starts.
+   */
+  private final int[] blockStarts;
+
+
+  /**
+   * Constructs an index over the given list, which must be sorted by the
+   * given comparator.
+   *
+   * @param sorted
+   *   the sorted list of words to index
+   * @param comparator
+   *   the comparator the list is sorted by
+   * @throws NullPointerException
+   *   if either of {@code sorted} or {@code comparator} are {@code null}
+   * @throws IllegalArgumentException
+   *   if {@code sorted} is not sorted by {@code comparator}
+   */
+  public WordIndex(WordList sorted, AlphabetComparator comparator)
+    throws NullPointerException, IllegalArgumentException
+  {
+    if (null == comparator)
+    {
+      throw new NullPointerException();
+    }
+
+    this.comparator = comparator;
+    this.length = sorted.length();
+
+    int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    heads = new String[blocks];
+    blockStarts = new int[blocks + 1];
+
+    char[] encoded = new char[64];
+    int pos = 0;
+
+    for (int i = 0; i < length; ++i)
+    {
+      String word = sorted.get(i);
+      if (0 == i % BLOCK_SIZE)
+      {
+        heads[i / BLOCK_SIZE] = word;
+        blockStarts[i / BLOCK_SIZE] = pos;
+      }
+
+      if (i > 0)
+      {
+        String previous = sorted.get(i - 1);
+        if (comparator.compare(previous, word) > 0)
+        {
+          throw new IllegalArgumentException("Words " + (i - 1) + " and " + i + " are out of order");
+        }
+
+        if (0 != i % BLOCK_SIZE)
+        {
+          int shared = sharedPrefix(previous, word);
+          int suffix = word.length() - shared;
+          if (pos + suffix + 4 > encoded.length)
+          {
+            encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, pos + suffix + 4));
+          }
+          pos = writeLength(encoded, pos, shared);
+          pos = writeLength(encoded, pos, suffix);
+          word.getChars(shared, word.length(), encoded, pos);
+          pos += suffix;
+        }
+      }
+    }
+
+    blockStarts[blocks] = pos;
+    data = Arrays.copyOf(encoded, pos);
+  }
+
+
+  /**
+   * Returns the number of words in the index.
+   *
+   * @return
+   *   the number of words in the index
+   */
+  public int length()
+  {
+    return length;
+  }
+
+  /**
+   * Returns the word at the indicated index.
+   *
+   * @param idx
+   *   the index of the word to retrieve
+   * @return
+   *   the word at the indicated index
+   * @throws IndexOutOfBoundsException
+   *   if {@code idx} is negative or greater than or equal to the length of
+   *   the index
+   */
+  public String get(int idx) throws IndexOutOfBoundsException
+  {
+    if (idx < 0 || idx >= length)
+    {
+      throw new IndexOutOfBoundsException("Index: " + idx);
+    }
+    return decodeBlock(idx / BLOCK_SIZE)[idx % BLOCK_SIZE];
+  }
+
+  /**
+   * Returns the index of the first word not less than the given word, or
+   * the length of the index if there is no such word.
+   *
+   * @param word
+   *   the word to search for
+   * @return
+   *   the index of the first word greater than or equal to {@code word}
+   * @throws IllegalArgumentException
+   *   if {@code word} contains a character not found in the ordering
+   */
+  public int lowerBound(String word) throws IllegalArgumentException
+  {
+    return search(w -> comparator.compare(w, word) < 0);
+  }
+
+  /**
+   * Returns the index of the first word greater than the given word, or the
+   * length of the index if there is no such word.
+   *
+   * @param word
+   *   the word to search for
+   * @return
+   *   the index of the first word greater than {@code word}
+   * @throws IllegalArgumentException
+   *   if {@code word} contains a character not found in the ordering
+   */
+  public int upperBound(String word) throws IllegalArgumentException
+  {
+    return search(w -> comparator.compare(w, word) <= 0);
+  }
+
+  /**
+   * Returns the number of words starting with the given prefix.
+   *
+   * @param prefix
+   *   the prefix to search for
+   * @return
+   *   the number of words starting with {@code prefix}
+   * @throws IllegalArgumentException
+   *   if {@code prefix} contains a character not found in the ordering
+   */
+  public int countWithPrefix(String prefix) throws IllegalArgumentException
+  {
+    return prefixEnd(prefix) - lowerBound(prefix);
+  }
+
+  /**
+   * Returns the words starting with the given prefix, in order.
+   *
+   * @param prefix
+   *   the prefix to search for
+   * @return
+   *   the words starting with {@code prefix}
+   * @throws IllegalArgumentException
+   *   if {@code prefix} contains a character not found in the ordering
+   */
+  public List<String> withPrefix(String prefix) throws IllegalArgumentException
+  {
+    return words(lowerBound(prefix), prefixEnd(prefix));
+  }
+
+  /**
+   * Returns the words between the given bounds, inclusive, in order.
+   *
+   * @param from
+   *   the lower bound of the words to return
+   * @param to
+   *   the upper bound of the words to return
+   * @return
+   *   the words greater than or equal to {@code from} and less than or equal
+   *   to {@code to}
+   * @throws IllegalArgumentException
+   *   if either of {@code from} or {@code to} contain a character not found
+   *   in the ordering
+   */
+  public List<String> range(String from, String to) throws IllegalArgumentException
+  {
+    return words(lowerBound(from), upperBound(to));
+  }
+
+  /**
+   * Returns an estimate of the number of bytes used by the index to store
+   * its words, assuming every character takes two bytes and each object has
+   * a 16 byte header.
+   *
+   * @return
+   *   the estimated size of the index in bytes
+   */
+  public long estimatedBytes()
+  {
+    long bytes = 2L * data.length + 4L * blockStarts.length + 4L * heads.length;
+    for (String head : heads)
+    {
+      bytes += 40 + 2L * head.length();
+    }
+    return bytes;
+  }
+
+
+  /**
+   * Returns the index of the first word for which {@code before} is false,
+   * given that it is true for every word before that and false for every
+   * word after.
+   */
+  private int search(Predicate<String> before)
+  {
+    // Find the last block whose head comes before the boundary.
+    int start = 0;
+    int end = heads.length - 1;
+    int block = -1;
+    while (start <= end)
+    {
+      int mid = (start + end) >>> 1;
+      if (before.test(heads[mid]))
+      {
+        block = mid;
+        start = mid + 1;
+      }
+      else
+      {
+        end = mid - 1;
+      }
+    }
+
+    if (block < 0)
+    {
+      return 0;
+    }
+
+    String[] words = decodeBlock(block);
+    int i = 1;
+    while (i < words.length && before.test(words[i]))
+    {
+      ++i;
+    }
+    return block * BLOCK_SIZE + i;
+  }
+
+  /**
+   * Returns the index after the last word starting with the given prefix.
+   */
+  private int prefixEnd(String prefix)
+  {
+    return search(w -> w.startsWith(prefix) || comparator.compare(w, prefix) < 0);
+  }
+
+  /**
+   * Returns the words from index {@code start} up to, but not including,
+   * index {@code end}.
+   */
+  private List<String> words(int start, int end)
+  {
+    List<String> result = new ArrayList<>(Math.max(0, end - start));
+    int i = start;
+    while (i < end)
+    {
+      String[] block = decodeBlock(i / BLOCK_SIZE);
+      for (int j = i % BLOCK_SIZE; j < block.length && i < end; ++j, ++i)
+      {
+        result.add(block[j]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the words of the indicated block.
+   */
+  private String[] decodeBlock(int block)
+  {
+    int count = Math.min(BLOCK_SIZE, length - block * BLOCK_SIZE);
+    String[] words = new String[count];
+    words[0] = heads[block];
+
+    char[] buffer = new char[Math.max(16, words[0].length())];
+    words[0].getChars(0, words[0].length(), buffer, 0);
+
+    int[] read = new int[1];
+    int pos = blockStarts[block];
+    for (int i = 1; i < count; ++i)
+    {
+      read[0] = pos;
+      int shared = readLength(data, read);
+      int suffix = readLength(data, read);
+      pos = read[0];
+
+      if (shared + suffix > buffer.length)
+      {
+        buffer = Arrays.copyOf(buffer, 2 * (shared + suffix));
+      }
+      System.arraycopy(data, pos, buffer, shared, suffix);
+      pos += suffix;
+      words[i] = new String(buffer, 0, shared + suffix);
+    }
+    return words;
+  }
+
+  /**
+   * Returns the number of leading characters the given strings share.
+   */
+  private static int sharedPrefix(String a, String b)
+  {
+    int max = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < max && a.charAt(i) == b.charAt(i))
+    {
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Writes the given non-negative length to the given array at the given
+   * index, as one character if it is less than {@code 0x8000} and as two
+   * characters otherwise, returning the index after it.
+   */
+  private static int writeLength(char[] dest, int pos, int value)
+  {
+    if (value < 0x8000)
+    {
+      dest[pos] = (char) value;
+      return pos + 1;
+    }
+    dest[pos] = (char) (0x8000 | value >>> 16);
+    dest[pos + 1] = (char) value;
+    return pos + 2;
+  }
+
+  /**
+   * Reads a length written by {@link #writeLength(char[], int, int)} at the
+   * index held by {@code pos}, advancing that index past it.
+   */
+  private static int readLength(char[] src, int[] pos)
+  {
+    char c = src[pos[0]++];
+    if (c < 0x8000)
+    {
+      return c;
+    }
+    return (c & 0x7FFF) << 16 | src[pos[0]++];
+  }
+}
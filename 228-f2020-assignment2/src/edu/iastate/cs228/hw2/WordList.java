@@ -39,6 +39,19 @@ WordList
     System.arraycopy(contents, 0, words, 0, contents.length);
   }
 
+  /**
+   * Constructs a list of the given length whose elements are all
+   * {@code null}.
+   *
+   * @param length
+   *   the length of the new list
+   */
+  private
+  WordList(int length)
+  {
+    words = new String[length];
+  }
+
   /**
    * Constructs and initializes the list by reading from the indicated file.
    * The file is read assuming that each line contains a word. The ordering in
@@ -166,6 +179,33 @@ WordList
     return words;
   }
 
+  /**
+   * Replaces the contents of the list with the contents of the given list,
+   * which must have the same length, without allocating.
+   * This allows a single list to be reused as a working copy of another.
+   *
+   * @param source
+   *   the list whose contents to copy
+   * @throws NullPointerException
+   *   if {@code source} is {@code null}
+   * @throws IllegalArgumentException
+   *   if {@code source} does not have the same length as this list
+   */
+  public
+  void
+  resetFrom(WordList source)
+    throws NullPointerException,
+           IllegalArgumentException
+  {
+    if (source.words.length != words.length)
+    {
+      throw new IllegalArgumentException("Expected a list of length " + words.length
+                                         + ", got " + source.words.length);
+    }
+
+    System.arraycopy(source.words, 0, words, 0, words.length);
+  }
+
   /**
    * Performs a deep copy of the list.
    */
@@ -174,10 +214,10 @@ WordList
   WordList
   clone()
   {
-    String[] newWords = new String[words.length];
+    WordList copy = new WordList(words.length);
 
-    System.arraycopy(words, 0, newWords, 0, words.length);
+    System.arraycopy(words, 0, copy.words, 0, words.length);
 
-    return new WordList(newWords);
+    return copy;
   }
 }
@@ -0,0 +1,379 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Comparator;
+
+
+/**
+ * A read-only list of words held in a binary file, which is memory-mapped
+ * so that opening it needs no parsing.
+ *
+ * A word list file holds, big-endian:
+ *  - a header of the magic number {@code WLST}, the format version, the
+ *    number of words, a flags word whose lowest bit is set if the words are
+ *    sorted, and the {@linkplain Alphabet#fingerprint() fingerprint} of the
+ *    alphabet they are sorted under (zero if unsorted)
+ *  - an offsets table of one more entry than there are words, where word
+ *    {@code i} spans the characters from offset {@code i} up to, but not
+ *    including, offset {@code i + 1}
+ *  - the UTF-16 characters of every word, packed one after another
+ *
+ * @author Jack Croghan
+ */
+public class WordListFile
+{
+  /**
+   * The magic number starting every word list file.
+   */
+  private static final int MAGIC = 0x574C5354;
+
+  /**
+   * The version of the format written.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The flag set if the words are sorted.
+   */
+  private static final int SORTED = 1;
+
+  /**
+   * The number of bytes in the header.
+   */
+  private static final int HEADER_SIZE = 24;
+
+
+  /**
+   * The number of words in the file.
+   */
+  private final int length;
+
+  /**
+   * Whether the words are sorted.
+   */
+  private final boolean sorted;
+
+  /**
+   * The fingerprint of the alphabet the words are sorted under.
+   */
+  private final long alphabetFingerprint;
+
+  /**
+   * The mapped offsets table.
+   */
+  private final IntBuffer offsets;
+
+  /**
+   * The mapped characters of the words.
+   */
+  private final CharBuffer chars;
+
+
+  /**
+   * Constructs the list over the given mapped file contents.
+   */
+  private WordListFile(ByteBuffer buffer, String filename) throws IllegalArgumentException
+  {
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+    {
+      throw new IllegalArgumentException(filename + " is not a word list file");
+    }
+    if (buffer.getInt() != VERSION)
+    {
+      throw new IllegalArgumentException(filename + " has an unsupported version");
+    }
+
+    length = buffer.getInt();
+    sorted = (buffer.getInt() & SORTED) != 0;
+    alphabetFingerprint = buffer.getLong();
+
+    long offsetsSize = 4L * length + 4;
+    if (length < 0 || buffer.remaining() < offsetsSize)
+    {
+      throw new IllegalArgumentException(filename + " is truncated");
+    }
+
+    offsets = buffer.slice().limit((int) offsetsSize).asIntBuffer();
+    buffer.position(buffer.position() + (int) offsetsSize);
+    chars = buffer.slice().asCharBuffer();
+
+    // Checking every offset once here lets get() trust them.
+    int previous = 0;
+    for (int i = 0; i <= length; ++i)
+    {
+      int offset = offsets.get(i);
+      if (offset < previous)
+      {
+        throw new IllegalArgumentException(filename + " has a corrupt offsets table");
+      }
+      previous = offset;
+    }
+    if (previous > chars.limit())
+    {
+      throw new IllegalArgumentException(filename + " is truncated");
+    }
+  }
+
+
+  /**
+   * Opens the indicated word list file by memory-mapping it.
+   *
+   * @param filename
+   *   the name of the file to open
+   * @return
+   *   the list held by the file
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be found
+   * @throws IllegalArgumentException
+   *   if the file is not a word list file
+   * @throws UncheckedIOException
+   *   if the file cannot be mapped
+   */
+  public static WordListFile open(String filename)
+    throws NullPointerException, FileNotFoundException, IllegalArgumentException
+  {
+    try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+         FileChannel channel = file.getChannel())
+    {
+      return new WordListFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), filename);
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns true if and only if the indicated file starts with the header of
+   * a word list file: the magic number, a supported version, valid flags,
+   * and a number of words whose offsets table fits in the file. Checking the
+   * whole header keeps a text file that merely starts with {@code WLST} from
+   * being taken for a word list file.
+   *
+   * @param filename
+   *   the name of the file to test
+   * @return
+   *   true if and only if the file appears to be a word list file
+   * @throws NullPointerException
+   *   if {@code filename} is {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be found
+   */
+  public static boolean isWordListFile(String filename) throws NullPointerException, FileNotFoundException
+  {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(filename)))
+    {
+      long fileSize = new File(filename).length();
+      if (in.readInt() != MAGIC || in.readInt() != VERSION)
+      {
+        return false;
+      }
+      int count = in.readInt();
+      int flags = in.readInt();
+      return count >= 0 && (flags & ~SORTED) == 0 && HEADER_SIZE + 4L * count + 4 <= fileSize;
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Writes the given list to the indicated file.
+   *
+   * @param words
+   *   the list to write
+   * @param alphabet
+   *   the alphabet the list is sorted under, or {@code null} if it is not
+   *   sorted
+   * @param filename
+   *   the name of the file to write
+   * @throws NullPointerException
+   *   if either of {@code words} or {@code filename} are {@code null}
+   * @throws FileNotFoundException
+   *   if the file cannot be created
+   * @throws UncheckedIOException
+   *   if the file cannot be written
+   */
+  public static void write(WordList words, Alphabet alphabet, String filename)
+    throws NullPointerException, FileNotFoundException
+  {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename))))
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(words.length());
+      out.writeInt(null == alphabet ? 0 : SORTED);
+      out.writeLong(null == alphabet ? 0 : alphabet.fingerprint());
+
+      int offset = 0;
+      out.writeInt(offset);
+      for (String word : words.getArray())
+      {
+        offset += word.length();
+        out.writeInt(offset);
+      }
+      for (String word : words.getArray())
+      {
+        out.writeChars(word);
+      }
+    }
+    catch (FileNotFoundException e)
+    {
+      throw e;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Converts a text word file, as read by {@link WordList#WordList(String)},
+   * to a word list file, sorting it first if an alphabet is given.
+   *
+   * @param args
+   *   an array expected to contain two or three arguments:
+   *    - the name of the text file to read
+   *    - the name of the word list file to write
+   *    - optionally, the name of a file containing the ordering to sort the
+   *      words by, either as text or as an {@link Alphabet} snapshot
+   */
+  public static void main(String[] args) throws FileNotFoundException
+  {
+    WordList words = new WordList(args[0]);
+    Alphabet alphabet = null;
+
+    if (args.length > 2)
+    {
+      alphabet = Alphabet.load(args[2]);
+      new MergeSorter().sort(words, new AlphabetComparator(alphabet));
+    }
+    write(words, alphabet, args[1]);
+  }
+
+
+  /**
+   * Returns the number of words in the list.
+   *
+   * @return
+   *   the number of words in the list
+   */
+  public int length()
+  {
+    return length;
+  }
+
+  /**
+   * Returns the word at the indicated index.
+   *
+   * @param idx
+   *   the index of the word to retrieve
+   * @return
+   *   the word at the indicated index
+   * @throws IndexOutOfBoundsException
+   *   if {@code idx} is negative or greater than or equal to the length of
+   *   the list
+   */
+  public String get(int idx) throws IndexOutOfBoundsException
+  {
+    if (idx < 0 || idx >= length)
+    {
+      throw new IndexOutOfBoundsException("Index: " + idx);
+    }
+
+    int start = offsets.get(idx);
+    char[] word = new char[offsets.get(idx + 1) - start];
+    chars.get(start, word);
+    return new String(word);
+  }
+
+  /**
+   * Returns true if and only if the words were sorted under the given
+   * alphabet when written.
+   *
+   * @param alphabet
+   *   the alphabet to test
+   * @return
+   *   true if and only if the words are sorted under {@code alphabet}
+   */
+  public boolean isSortedUnder(Alphabet alphabet)
+  {
+    return sorted && alphabet.fingerprint() == alphabetFingerprint;
+  }
+
+  /**
+   * Searches the list for the given word, which must be sorted by the given
+   * comparator.
+   *
+   * @param word
+   *   the word to search for
+   * @param comp
+   *   the comparator the list is sorted by
+   * @return
+   *   the index of {@code word} if it is in the list; otherwise
+   *   {@code -(insertion point) - 1}, where the insertion point is the index
+   *   of the first word greater than {@code word}
+   */
+  public int binarySearch(String word, Comparator<String> comp)
+  {
+    int start = 0;
+    int end = length - 1;
+
+    while (start <= end)
+    {
+      int mid = (start + end) >>> 1;
+      int c = comp.compare(get(mid), word);
+      if (c < 0)
+      {
+        start = mid + 1;
+      }
+      else if (c > 0)
+      {
+        end = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    return -(start + 1);
+  }
+
+  /**
+   * Copies the words into a new {@link WordList}.
+   *
+   * @return
+   *   a list holding the words of this list
+   */
+  public WordList toWordList()
+  {
+    String[] words = new String[length];
+    for (int i = 0; i < length; ++i)
+    {
+      words[i] = get(i);
+    }
+    return new WordList(words);
+  }
+}
@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Runs SorterFramework in its startup-optimized mode, and measures the time
+# from launch to the first line of output before and after the optimization.
+#
+# The optimized mode loads the alphabet from a binary snapshot written by
+# Alphabet.main, and starts the JVM with an application class-data-sharing
+# archive dumped by a training run, so that the framework's classes are
+# mapped from the archive instead of being loaded and verified again.
+#
+# Usage: startup.sh <alphabet file> <word file> [runs]
+#
+# Each sorter sorts the word file once, so a small word file keeps the
+# measurement dominated by startup rather than by sorting. Build output, the
+# snapshot and the archive go to $BUILD_DIR, which defaults to the build
+# directory next to this script.
+
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "Usage: $0 <alphabet file> <word file> [runs]" >&2
+  exit 1
+fi
+
+alphabet=$1
+words=$2
+runs=${3:-5}
+
+root=$(cd "$(dirname "$0")" && pwd)
+build=${BUILD_DIR:-$root/build}
+jar=$build/sorters.jar
+snapshot=$build/alphabet.snap
+archive=$build/sorters.jsa
+
+# Class-data sharing only archives classes loaded from JAR files.
+rm -rf "$build/classes"
+mkdir -p "$build/classes"
+javac -d "$build/classes" "$root"/src/edu/iastate/cs228/hw2/*.java
+jar cf "$jar" -C "$build/classes" .
+
+java -cp "$jar" Alphabet "$alphabet" "$snapshot" >/dev/null
+java -XX:ArchiveClassesAtExit="$archive" -cp "$jar" SorterFramework "$snapshot" "$words" 1 >/dev/null
+
+# Prints the milliseconds from launching the given command to its first line
+# of output, then waits for it to finish so runs do not overlap.
+first_output() {
+  local start end
+  start=$(date +%s%N)
+  "$@" | {
+    IFS= read -r _
+    end=$(date +%s%N)
+    echo $(( (end - start) / 1000000 ))
+    cat >/dev/null
+  }
+}
+
+# Prints the median of the given numbers.
+median() {
+  printf '%s\n' "$@" | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+before=()
+after=()
+for ((i = 0; i < runs; ++i)); do
+  before+=("$(first_output java -cp "$jar" SorterFramework "$alphabet" "$words" 1)")
+  after+=("$(first_output java -XX:SharedArchiveFile="$archive" -cp "$jar" SorterFramework "$snapshot" "$words" 1)")
+done
+
+echo "Startup to first output, median of $runs runs:"
+echo "  text alphabet, no archive:   $(median "${before[@]}") ms (${before[*]})"
+echo "  snapshot alphabet, archive:  $(median "${after[@]}") ms (${after[*]})"